@@ -0,0 +1,96 @@
+package com.example.demo;
+
+import com.example.demo.search.BookSearchIndexLoader;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Boots the application, without a web server unless {@link #startServer} is used, against its own
+ * in-memory database and seeds it with a deterministic catalog, so repository benchmarks measure
+ * the real schema and indexes.
+ */
+public final class BenchmarkCatalog {
+
+    private static final String[] WORDS = {
+            "amor", "tiempo", "cien", "años", "soledad", "ciudad", "perros", "casa", "espíritus", "sombra",
+            "viento", "ruido", "guerra", "paz", "noche", "mar", "río", "montaña", "camino", "jardín"
+    };
+    private static final int BATCH_SIZE = 10_000;
+    private static final AtomicInteger SERVERS = new AtomicInteger();
+
+    private BenchmarkCatalog() {
+    }
+
+    public static ConfigurableApplicationContext start(int rows, String... args) {
+        return start(WebApplicationType.NONE, "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", rows, args);
+    }
+
+    /**
+     * Same catalog behind the servlet stack on a random port, in a database of its own that is
+     * dropped when the context is closed, so that several servers can be started one after another.
+     */
+    public static ConfigurableApplicationContext startServer(int rows, String... args) {
+        return start(WebApplicationType.SERVLET, "jdbc:h2:mem:server-" + SERVERS.incrementAndGet(), rows,
+                Stream.concat(Stream.of("--server.port=0"), Stream.of(args)).toArray(String[]::new));
+    }
+
+    /**
+     * Same catalog in a file database under {@code directory}, with the snapshot endpoint enabled,
+     * to build snapshots of a given size.
+     */
+    public static ConfigurableApplicationContext startFile(Path directory, int rows, String... args) {
+        return start(WebApplicationType.NONE, "jdbc:h2:file:" + directory.toAbsolutePath().resolve("books"), rows,
+                Stream.concat(Stream.of("--books.storage.directory=" + directory.toAbsolutePath()), Stream.of(args))
+                        .toArray(String[]::new));
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String url, int rows,
+                                                        String... args) {
+        List<String> arguments = new ArrayList<>(List.of("--spring.datasource.url=" + url,
+                "--books.sql-log.slow-threshold=1h",
+                "--logging.level.root=WARN"));
+        arguments.addAll(List.of(args));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(webApplicationType)
+                .run(arguments.toArray(String[]::new));
+        seed(context.getBean(JdbcTemplate.class), rows);
+        context.getBean(BookSearchIndexLoader.class).load();
+        return context;
+    }
+
+    public static String title(long id) {
+        Random random = new Random(id);
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                + WORDS[random.nextInt(WORDS.length)] + " " + id;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long id = 1; id <= rows; id++) {
+            batch.add(new Object[]{id, title(id), "Author " + id % 1000, BigDecimal.valueOf(id % 10_000, 2),
+                    Date.valueOf(LocalDate.of(1900, 1, 1).plusDays(id % 40_000)), now, now});
+            if (batch.size() == BATCH_SIZE || id == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO books (id, title, author, price, release_date, created_at, last_modify) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        // the pooled generator hands out the ids up to each value it draws, so its first block must start past the rows
+        jdbcTemplate.execute("ALTER SEQUENCE books_seq RESTART WITH " + (rows + 50));
+    }
+}
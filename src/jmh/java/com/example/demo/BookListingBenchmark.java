@@ -0,0 +1,94 @@
+package com.example.demo;
+
+import com.example.demo.dto.BookModelAssembler;
+import com.example.demo.persistence.dao.BookRepository;
+import com.example.demo.persistence.dao.BookSummary;
+import com.example.demo.persistence.model.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A listing page from the query to the response bytes, as HAL built from entities and as the
+ * compact representation built from projections, bypassing the query cache. Run with the default
+ * gc profiler, "gc.alloc.rate.norm" gives the bytes allocated per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookListingBenchmark {
+
+    private static final BigDecimal MAX_PRICE = BigDecimal.valueOf(1_000_000);
+
+    @Param("100000")
+    private int rows;
+
+    @Param({"10", "100"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private final BookModelAssembler assembler = new BookModelAssembler();
+    private ObjectMapper objectMapper;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start(rows);
+        bookRepository = context.getBean(BookRepository.class);
+        pageable = PageRequest.of(0, size, Sort.by("title").and(Sort.by("id")));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.setServerName("localhost");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        objectMapper = new ObjectMapper()
+                .registerModule(new Jackson2HalModule())
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] halFromEntities() throws JsonProcessingException {
+        Page<Book> page = bookRepository.findByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                "", "", BigDecimal.ZERO, MAX_PRICE, LocalDate.MIN, LocalDate.MAX, pageable);
+        return objectMapper.writeValueAsBytes(assembler.toCollectionModel(page));
+    }
+
+    @Benchmark
+    public byte[] compactFromProjections() throws JsonProcessingException {
+        Page<BookSummary> page = bookRepository.findSummariesByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                "", "", BigDecimal.ZERO, MAX_PRICE, LocalDate.MIN, LocalDate.MAX, pageable);
+        return objectMapper.writeValueAsBytes(assembler.toCompactPage(page));
+    }
+}
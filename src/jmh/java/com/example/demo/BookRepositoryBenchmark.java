@@ -0,0 +1,95 @@
+package com.example.demo;
+
+import com.example.demo.persistence.dao.BookCursor;
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.dao.BookRepository;
+import com.example.demo.persistence.model.Book;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offset pagination against keyset pagination at increasing depths of a seeded catalog, in id order
+ * and in title order. In id order a keyset read seeks the primary key and should cost the same at
+ * page 5000 as at page 1; in title order it still filters and sorts the whole catalog, and only
+ * saves the skipped rows. An offset read scans every skipped row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookRepositoryBenchmark {
+
+    private static final int SIZE = 10;
+    private static final BookFilter ALL_BOOKS = new BookFilter("", "", BigDecimal.ZERO,
+            BigDecimal.valueOf(Long.MAX_VALUE), LocalDate.MIN, LocalDate.MAX);
+
+    @Param("1000000")
+    private int rows;
+
+    @Param({"1", "100", "5000"})
+    private int page;
+
+    @Param({"id", "title"})
+    private String sortBy;
+
+    private ConfigurableApplicationContext context;
+    private Sort sort;
+    private BookRepository bookRepository;
+    private BookCursor cursor;
+    private Book book;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start(rows);
+        bookRepository = context.getBean(BookRepository.class);
+        sort = sortBy.equals("id") ? Sort.by("id") : Sort.by(sortBy).and(Sort.by("id"));
+        List<Book> previousPage = offsetPage(page - 1).getContent();
+        cursor = BookCursor.of(previousPage.get(previousPage.size() - 1), sort);
+        book = previousPage.get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> offsetPage() {
+        return offsetPage(page);
+    }
+
+    @Benchmark
+    public Slice<Book> offsetSlice() {
+        return bookRepository.readByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                ALL_BOOKS.title(), ALL_BOOKS.author(), ALL_BOOKS.startPrice(), ALL_BOOKS.endPrice(),
+                ALL_BOOKS.releaseDateFrom(), ALL_BOOKS.releaseDateTo(), PageRequest.of(page, SIZE, sort));
+    }
+
+    @Benchmark
+    public List<Book> keysetPage() {
+        return bookRepository.findFilteredAfter(ALL_BOOKS, sort, cursor, SIZE + 1);
+    }
+
+    @Benchmark
+    public Optional<Book> findByNaturalKey() {
+        return bookRepository.findByTitleAndAuthorAndReleaseDate(book.getTitle(), book.getAuthor(), book.getReleaseDate());
+    }
+
+    private Page<Book> offsetPage(int page) {
+        return bookRepository.findByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                ALL_BOOKS.title(), ALL_BOOKS.author(), ALL_BOOKS.startPrice(), ALL_BOOKS.endPrice(),
+                ALL_BOOKS.releaseDateFrom(), ALL_BOOKS.releaseDateTo(), PageRequest.of(page, SIZE, sort));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo;
+
+import com.example.demo.dto.BookPriceChange;
+import com.example.demo.dto.BookRepriceSummary;
+import com.example.demo.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows repriced per second by the batch endpoint's service, for both its explicit price list and
+ * its per-author rule, against repricing the same books one PATCH at a time. The "rows" counter is
+ * the throughput to compare; one in a hundred ids of the price list does not exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookRepriceBenchmark {
+
+    private static final int CHANGES = 10_000;
+    private static final int SINGLE_PATCHES = 1_000;
+
+    @Param("1000000")
+    private int rows;
+
+    @Param({"100", "1000", "5000"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private List<BookPriceChange> changes;
+    private int invocation;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RowCounter {
+        public long rows;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start(rows, "--books.reprice.batch-size=" + batchSize);
+        bookService = context.getBean(BookService.class);
+
+        Random random = new Random(42);
+        changes = new ArrayList<>(CHANGES);
+        for (int i = 0; i < CHANGES; i++) {
+            long id = i % 100 == 0 ? rows + 1 + i : 1 + random.nextInt(rows);
+            changes.add(new BookPriceChange(id, BigDecimal.valueOf(random.nextInt(1_000_000), 2)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookRepriceSummary priceList(RowCounter counter) {
+        BookRepriceSummary summary = bookService.repriceBooks(changes.iterator());
+        counter.rows += summary.updated();
+        return summary;
+    }
+
+    @Benchmark
+    public BookRepriceSummary authorRule(RowCounter counter) {
+        // raises and then lowers the prices of each author so they stay within the column's range
+        int step = invocation++;
+        BigDecimal percent = step % 2 == 0 ? BigDecimal.ONE : BigDecimal.ONE.negate();
+        BookRepriceSummary summary = bookService.repriceBooksByAuthor("Author " + step / 2 % 1000, percent);
+        counter.rows += summary.updated();
+        return summary;
+    }
+
+    @Benchmark
+    public int onePatchPerRow(RowCounter counter) {
+        int updated = 0;
+        for (BookPriceChange change : changes.subList(0, SINGLE_PATCHES)) {
+            if (bookService.updateBookPrice(change.id(), change.price(), null).isPresent()) {
+                updated++;
+            }
+        }
+        counter.rows += updated;
+        return updated;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo;
+
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.dao.BookRepository;
+import com.example.demo.persistence.model.Book;
+import com.example.demo.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Free-text lookup through the in-memory search index against the {@code LIKE '%q%'} scan the
+ * filter parameters run, for a common word, a prefix and a single title.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSearchBenchmark {
+
+    private static final int SIZE = 10;
+    private static final BookFilter ALL_BOOKS = new BookFilter("", "", BigDecimal.ZERO,
+            BigDecimal.valueOf(Long.MAX_VALUE), LocalDate.MIN, LocalDate.MAX);
+
+    @Param("100000")
+    private int rows;
+
+    @Param({"soledad", "sole", "title"})
+    private String query;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private BookService bookService;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start(rows);
+        bookRepository = context.getBean(BookRepository.class);
+        bookService = context.getBean(BookService.class);
+        text = "title".equals(query) ? BenchmarkCatalog.title(rows / 2) : query;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> searchIndex() {
+        return bookService.searchBooks(text, ALL_BOOKS, 0, SIZE);
+    }
+
+    @Benchmark
+    public Page<Book> likeScan() {
+        return bookRepository.findByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                text, ALL_BOOKS.author(), ALL_BOOKS.startPrice(), ALL_BOOKS.endPrice(),
+                ALL_BOOKS.releaseDateFrom(), ALL_BOOKS.releaseDateTo(), PageRequest.of(0, SIZE));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.demo.dto;
+
+import com.example.demo.controller.BookController;
+import com.example.demo.persistence.model.Book;
+import com.example.demo.service.BookServiceImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Link building and HAL serialization of a single book and of a page of books, measured apart so
+ * the cost of each step of a listing response is visible. The "PerRequest" pair builds a page in
+ * a new request each time, with the assembler and with one linkTo(methodOn(...)) pair per book.
+ * A page is serialized both with the bean serializer and with {@link BookJsonSerializer}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookModelAssemblerBenchmark {
+
+    @Param({"10", "100"})
+    private int size;
+
+    private final BookModelAssembler assembler = new BookModelAssembler();
+    private ObjectMapper objectMapper;
+    private ObjectMapper bookSerializerObjectMapper;
+    private List<Book> books;
+    private EntityModel<Book> model;
+    private CollectionModel<EntityModel<Book>> collectionModel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        newRequest();
+
+        objectMapper = halObjectMapper();
+        bookSerializerObjectMapper = halObjectMapper().registerModule(new SimpleModule().addSerializer(Book.class, new BookJsonSerializer()));
+
+        ZonedDateTime now = ZonedDateTime.now();
+        books = LongStream.rangeClosed(1, size)
+                .mapToObj(id -> Book.builder()
+                        .id(id)
+                        .title("Cien años de soledad " + id)
+                        .author("Gabriel García Márquez")
+                        .price(BigDecimal.valueOf(1999 + id, 2))
+                        .releaseDate(LocalDate.of(1967, 5, 30).plusDays(id))
+                        .createdAt(now)
+                        .lastModify(now)
+                        .build())
+                .toList();
+        model = assembler.toModel(books.get(0));
+        collectionModel = assembler.toCollectionModel(books);
+        byte[] hal = objectMapper.writeValueAsBytes(collectionModel);
+        if (!Arrays.equals(hal, objectMapper.writeValueAsBytes(toCollectionModelWithMethodOn(books)))) {
+            throw new IllegalStateException("The assembler and linkTo(methodOn(...)) render different HAL");
+        }
+        if (!Arrays.equals(hal, bookSerializerObjectMapper.writeValueAsBytes(collectionModel))) {
+            throw new IllegalStateException("BookJsonSerializer renders different HAL");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public EntityModel<Book> toModel() {
+        return assembler.toModel(books.get(0));
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Book>> toCollectionModel() {
+        return assembler.toCollectionModel(books);
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Book>> toCollectionModelPerRequest() {
+        newRequest();
+        return assembler.toCollectionModel(books);
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Book>> toCollectionModelWithMethodOnPerRequest() {
+        newRequest();
+        return toCollectionModelWithMethodOn(books);
+    }
+
+    @Benchmark
+    public byte[] serializeModel() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(model);
+    }
+
+    @Benchmark
+    public byte[] serializeCollectionModel() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(collectionModel);
+    }
+
+    @Benchmark
+    public byte[] serializeCollectionModelWithBookSerializer() throws JsonProcessingException {
+        return bookSerializerObjectMapper.writeValueAsBytes(collectionModel);
+    }
+
+    private static ObjectMapper halObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new Jackson2HalModule())
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+
+    private static void newRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.setServerName("localhost");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static CollectionModel<EntityModel<Book>> toCollectionModelWithMethodOn(List<Book> books) {
+        Link listing = linkTo(methodOn(BookController.class).getAllBooks(0, BookServiceImpl.getPaginationValue(), "", "", "", "",
+                LocalDate.MIN, LocalDate.MAX, "", null, true, null, null)).withSelfRel();
+        return CollectionModel.of(books.stream()
+                .map(book -> EntityModel.of(book,
+                        linkTo(methodOn(BookController.class).getBookById(book.getId(), null)).withSelfRel(),
+                        linkTo(methodOn(BookController.class).getAllBooks(0, BookServiceImpl.getPaginationValue(), "", "", "", "",
+                                LocalDate.MIN, LocalDate.MAX, "", null, true, null, null)).withRel("books")))
+                .toList(), listing);
+    }
+}
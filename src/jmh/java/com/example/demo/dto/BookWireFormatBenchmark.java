@@ -0,0 +1,160 @@
+package com.example.demo.dto;
+
+import com.example.demo.persistence.model.Book;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost of a page of books in each representation the listing negotiates: HAL JSON, CBOR and Smile,
+ * all carrying the same HAL document. Serialization and deserialization are measured per page, and
+ * so is serialization followed by gzip at the level {@code CompressionFilter} uses by default.
+ * The bytes on the wire for each format, raw, gzipped and deflated, are printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookWireFormatBenchmark {
+
+    private static final int LEVEL = 6;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"10", "100"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private ObjectReader pageReader;
+    private CollectionModel<EntityModel<Book>> page;
+    private byte[] serializedPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.setServerName("localhost");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        objectMapper = halObjectMapper(switch (format) {
+            case "json" -> new JsonFactory();
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> throw new IllegalArgumentException("Unsupported format " + format);
+        });
+        pageReader = objectMapper.readerFor(new TypeReference<CollectionModel<EntityModel<Book>>>() {});
+
+        ZonedDateTime now = ZonedDateTime.now();
+        List<Book> books = LongStream.rangeClosed(1, size)
+                .mapToObj(id -> Book.builder()
+                        .id(id)
+                        .title("Cien años de soledad " + id)
+                        .author("Gabriel García Márquez")
+                        .price(BigDecimal.valueOf(1999 + id, 2))
+                        .releaseDate(LocalDate.of(1967, 5, 30).plusDays(id))
+                        .createdAt(now)
+                        .lastModify(now)
+                        .build())
+                .toList();
+        page = new BookModelAssembler().toCollectionModel(books);
+        serializedPage = objectMapper.writeValueAsBytes(page);
+
+        CollectionModel<EntityModel<Book>> read = pageReader.readValue(serializedPage);
+        if (read.getContent().size() != size
+                || !read.getContent().iterator().next().getContent().getTitle().equals(books.get(0).getTitle())) {
+            throw new IllegalStateException(format + " does not read back the page it wrote");
+        }
+        System.out.printf("%n%s, %d books per page: %d bytes, %d gzipped, %d deflated%n", format, size,
+                serializedPage.length, gzip(serializedPage).length, deflate(serializedPage).length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeGzipped() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = gzipStream(bytes)) {
+            objectMapper.writeValue(out, page);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Book>> deserialize() throws IOException {
+        return pageReader.readValue(serializedPage);
+    }
+
+    private static ObjectMapper halObjectMapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory)
+                .registerModule(new Jackson2HalModule())
+                .registerModule(new JavaTimeModule())
+                .registerModule(new SimpleModule().addSerializer(Book.class, new BookJsonSerializer()))
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+
+    private static OutputStream gzipStream(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, 8 * 1024) {{ def.setLevel(LEVEL); }};
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = gzipStream(compressed)) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(LEVEL);
+        try (OutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+            out.write(bytes);
+        } finally {
+            deflater.end();
+        }
+        return compressed.toByteArray();
+    }
+}
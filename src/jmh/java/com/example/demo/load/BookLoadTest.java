@@ -0,0 +1,153 @@
+package com.example.demo.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Closed-loop HTTP load generator for a running instance: each simulated client sends a request,
+ * waits for its response and sends the next one until the run ends. Responses completed during
+ * the first fifth of the run (at most 10 seconds) are treated as warm-up and not recorded. Only
+ * successful responses count as requests and latencies; error statuses ({@code failures}) and
+ * requests that got no response ({@code errors}) are counted apart.
+ * <p>
+ * Usage: {@code BookLoadTest <url> <clients> <seconds> [result.json]}. Throughput and latency
+ * percentiles are printed and, when a result file is given, written to it as JSON so runs against
+ * different server modes can be compared.
+ */
+public final class BookLoadTest {
+
+    private final HttpClient httpClient;
+    private final HttpRequest request;
+    private final long recordFrom;
+    private final long deadline;
+    private final CountDownLatch finished;
+
+    private long[] latencies = new long[1 << 16];
+    private int recorded;
+    private int failures;
+    private int errors;
+
+    private BookLoadTest(URI uri, int clients, Duration duration) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.request = HttpRequest.newBuilder(uri)
+                .header("Accept", "application/hal+json")
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        this.recordFrom = start + Math.min(duration.toNanos() / 5, Duration.ofSeconds(10).toNanos());
+        this.deadline = start + duration.toNanos();
+        this.finished = new CountDownLatch(clients);
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: BookLoadTest <url> <clients> <seconds> [result.json]");
+            System.exit(2);
+        }
+        URI uri = URI.create(args[0]);
+        int clients = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+
+        Map<String, Object> result = run(uri, clients, duration);
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(objectMapper.writeValueAsString(result));
+        if (args.length > 3) {
+            objectMapper.writeValue(Path.of(args[3]).toFile(), result);
+        }
+    }
+
+    /**
+     * Runs {@code clients} closed-loop clients against {@code uri} for {@code duration} and returns
+     * the throughput and latency figures that {@link #main} prints.
+     */
+    public static Map<String, Object> run(URI uri, int clients, Duration duration) throws InterruptedException {
+        Map<String, Object> result = new BookLoadTest(uri, clients, duration).run(clients);
+        result.put("url", uri.toString());
+        return result;
+    }
+
+    private Map<String, Object> run(int clients) throws InterruptedException {
+        for (int client = 0; client < clients; client++) {
+            sendNext();
+        }
+        finished.await();
+
+        double measuredSeconds = (deadline - recordFrom) / 1e9;
+        long[] sorted;
+        int failed;
+        int unanswered;
+        synchronized (this) {
+            sorted = Arrays.copyOf(latencies, recorded);
+            failed = failures;
+            unanswered = errors;
+        }
+        Arrays.sort(sorted);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("clients", clients);
+        result.put("requests", sorted.length);
+        result.put("failures", failed);
+        result.put("errors", unanswered);
+        result.put("throughputPerSecond", Math.round(sorted.length / measuredSeconds));
+        result.put("p50Millis", percentile(sorted, 0.50));
+        result.put("p99Millis", percentile(sorted, 0.99));
+        result.put("p999Millis", percentile(sorted, 0.999));
+        result.put("maxMillis", percentile(sorted, 1.0));
+        return result;
+    }
+
+    private void sendNext() {
+        if (System.nanoTime() >= deadline) {
+            finished.countDown();
+            return;
+        }
+        long start = System.nanoTime();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            long end = System.nanoTime();
+            if (end >= recordFrom && end < deadline) {
+                record(end - start, error, response);
+            }
+            sendNext();
+        });
+    }
+
+    private synchronized void record(long latency, Throwable error, HttpResponse<?> response) {
+        if (error != null) {
+            errors++;
+            return;
+        }
+        if (response.statusCode() >= 400) {
+            failures++;
+            return;
+        }
+        if (recorded == latencies.length) {
+            latencies = Arrays.copyOf(latencies, recorded * 2);
+        }
+        latencies[recorded++] = latency;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.load;
+
+import com.example.demo.BenchmarkCatalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures how the connection pool size and open-in-view affect the throughput of {@code /api/books}.
+ * For every combination a server with the {@code perf} profile is started on a seeded catalog and
+ * loaded with {@link BookLoadTest}. The listing cache is turned off so that every request reaches
+ * the database and holds a connection.
+ * <p>
+ * Usage: {@code BookPoolSweep <rows> <clients> <seconds> <pool sizes> [result.json]}, the pool
+ * sizes separated by commas. Server and clients share the JVM, so the figures are meant to be
+ * compared with each other rather than read as the capacity of a deployment.
+ */
+public final class BookPoolSweep {
+
+    private static final String PATH = "/api/books?size=20&sortBy=title:ASC";
+
+    private BookPoolSweep() {
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: BookPoolSweep <rows> <clients> <seconds> <pool sizes> [result.json]");
+            System.exit(2);
+        }
+        int rows = Integer.parseInt(args[0]);
+        int clients = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+        int[] poolSizes = Arrays.stream(args[3].split(",")).mapToInt(size -> Integer.parseInt(size.trim())).toArray();
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (boolean openInView : new boolean[]{true, false}) {
+            for (int poolSize : poolSizes) {
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("poolSize", poolSize);
+                result.put("openInView", openInView);
+                result.putAll(run(rows, clients, duration, poolSize, openInView));
+                System.out.printf("pool %3d, open-in-view %-5s: %s requests/s, p99 %s ms, %s failures, %s errors%n", poolSize, openInView,
+                        result.get("throughputPerSecond"), result.get("p99Millis"), result.get("failures"), result.get("errors"));
+                results.add(result);
+            }
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(objectMapper.writeValueAsString(results));
+        if (args.length > 4) {
+            objectMapper.writeValue(Path.of(args[4]).toFile(), results);
+        }
+    }
+
+    private static Map<String, Object> run(int rows, int clients, Duration duration, int poolSize, boolean openInView)
+            throws InterruptedException {
+        try (ConfigurableApplicationContext context = BenchmarkCatalog.startServer(rows,
+                "--spring.profiles.active=perf",
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--spring.datasource.hikari.minimum-idle=" + poolSize,
+                "--spring.jpa.open-in-view=" + openInView,
+                "--books.query-cache.maximum-size=0",
+                "--server.tomcat.threads.max=" + Math.max(clients, 10))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return BookLoadTest.run(URI.create("http://localhost:" + port + PATH), clients, duration);
+        }
+    }
+}
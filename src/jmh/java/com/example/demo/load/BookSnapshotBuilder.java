@@ -0,0 +1,35 @@
+package com.example.demo.load;
+
+import com.example.demo.BenchmarkCatalog;
+import com.example.demo.config.CatalogSnapshotEndpoint;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds a catalog snapshot of the given size for the {@code file} profile to restore at startup.
+ * <p>
+ * Usage: {@code BookSnapshotBuilder <rows> <snapshot.zip>}.
+ */
+public final class BookSnapshotBuilder {
+
+    private BookSnapshotBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BookSnapshotBuilder <rows> <snapshot.zip>");
+            System.exit(2);
+        }
+        int rows = Integer.parseInt(args[0]);
+        Path snapshot = Path.of(args[1]).toAbsolutePath();
+        Path directory = Files.createTempDirectory("books-snapshot");
+
+        try (ConfigurableApplicationContext context = BenchmarkCatalog.startFile(directory, rows,
+                "--books.snapshot.file=" + snapshot)) {
+            System.out.println(context.getBean(CatalogSnapshotEndpoint.class).snapshot());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Time to the first served {@code /api/books} request and resident set size at that point for each
+ * way of starting the application built with {@code mvn -Pstartup package}:
+ * <ul>
+ *     <li>{@code jar}: the executable jar with the default configuration;</li>
+ *     <li>{@code prod}: the same with the {@code prod} profile (lazy initialization, no springdoc);</li>
+ *     <li>{@code aot}: the thin jar of {@code target/startup} with the AOT generated bean definitions;</li>
+ *     <li>{@code aot-cds}: the same with the class data sharing archive of the training run.</li>
+ * </ul>
+ * Runs go round the modes in turn, so that a disturbance on the machine does not weigh on one mode only.
+ * <p>
+ * Usage: {@code BookStartupModes <jar> <startup directory> [runs] [result.json]}.
+ */
+public final class BookStartupModes {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    private BookStartupModes() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BookStartupModes <jar> <startup directory> [runs] [result.json]");
+            System.exit(2);
+        }
+        Path jar = Path.of(args[0]).toAbsolutePath();
+        Path directory = Path.of(args[1]).toAbsolutePath();
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        Path thinJar = thinJar(directory);
+        Path archive = directory.resolve("demo.jsa");
+        if (!Files.exists(archive)) {
+            throw new IllegalArgumentException("No class data sharing archive in " + directory);
+        }
+
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("jar", List.of("-jar", jar.toString()));
+        modes.put("prod", List.of("-jar", jar.toString(), "--spring.profiles.active=prod"));
+        modes.put("aot", List.of("-Dspring.aot.enabled=true", "-jar", thinJar.toString(),
+                "--spring.profiles.active=prod"));
+        modes.put("aot-cds", List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true",
+                "-jar", thinJar.toString(), "--spring.profiles.active=prod"));
+
+        Map<String, List<Long>> millis = new LinkedHashMap<>();
+        Map<String, List<Long>> rss = new LinkedHashMap<>();
+        for (int run = 0; run < runs; run++) {
+            for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+                StartupProbe.Startup startup = StartupProbe.firstRequest(mode.getValue(), TIMEOUT);
+                millis.computeIfAbsent(mode.getKey(), key -> new ArrayList<>()).add(startup.millis());
+                rss.computeIfAbsent(mode.getKey(), key -> new ArrayList<>()).add(startup.rssKilobytes());
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String mode : modes.keySet()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("arguments", modes.get(mode));
+            entry.put("firstRequestMillis", millis.get(mode));
+            entry.put("rssKilobytes", rss.get(mode));
+            entry.put("firstRequestMedianMillis", StartupProbe.median(millis.get(mode)));
+            entry.put("rssMedianKilobytes", StartupProbe.median(rss.get(mode)));
+            result.put(mode, entry);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(objectMapper.writeValueAsString(result));
+        if (args.length > 3) {
+            objectMapper.writeValue(Path.of(args[3]).toFile(), result);
+        }
+    }
+
+    private static Path thinJar(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith("-startup.jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No startup jar in " + directory));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time from launching the packaged application with the {@code file} profile to its first served
+ * {@code /api/books} request. Each run starts once on an empty storage directory, restoring the
+ * snapshot ("restore"), and once more on the database that restore left ("reopen"). The process
+ * exits with status 1 when the median of either exceeds the target, so it can gate a build.
+ * <p>
+ * Usage: {@code BookStartupTest <jar> <snapshot.zip> <target seconds> [runs] [result.json]}.
+ */
+public final class BookStartupTest {
+
+    private BookStartupTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: BookStartupTest <jar> <snapshot.zip> <target seconds> [runs] [result.json]");
+            System.exit(2);
+        }
+        Path jar = Path.of(args[0]).toAbsolutePath();
+        Path snapshot = Path.of(args[1]).toAbsolutePath();
+        Duration target = Duration.ofSeconds(Long.parseLong(args[2]));
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        List<Long> restore = new ArrayList<>();
+        List<Long> reopen = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            Path directory = Files.createTempDirectory("books-startup");
+            restore.add(timeToFirstRequest(jar, snapshot, directory, target.multipliedBy(5)));
+            reopen.add(timeToFirstRequest(jar, snapshot, directory, target.multipliedBy(5)));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("snapshot", snapshot.toString());
+        result.put("snapshotBytes", Files.size(snapshot));
+        result.put("targetMillis", target.toMillis());
+        result.put("restoreMillis", restore);
+        result.put("reopenMillis", reopen);
+        result.put("restoreMedianMillis", StartupProbe.median(restore));
+        result.put("reopenMedianMillis", StartupProbe.median(reopen));
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(objectMapper.writeValueAsString(result));
+        if (args.length > 4) {
+            objectMapper.writeValue(Path.of(args[4]).toFile(), result);
+        }
+        if (StartupProbe.median(restore) > target.toMillis() || StartupProbe.median(reopen) > target.toMillis()) {
+            System.err.println("Startup to first request is over the target of " + target.toMillis() + " ms");
+            System.exit(1);
+        }
+    }
+
+    private static long timeToFirstRequest(Path jar, Path snapshot, Path directory, Duration timeout) throws Exception {
+        return StartupProbe.firstRequest(List.of("-jar", jar.toString(),
+                "--spring.profiles.active=file",
+                "--books.storage.directory=" + directory,
+                "--books.snapshot.file=" + snapshot), timeout).millis();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.load;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Launches the packaged application in a child JVM and waits for its first served
+ * {@code /api/books} request, reporting the time it took and the resident set size of the process
+ * at that point (read from {@code /proc}, so -1 on other systems than Linux).
+ */
+final class StartupProbe {
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+
+    record Startup(long millis, long rssKilobytes) {
+    }
+
+    private StartupProbe() {
+    }
+
+    /**
+     * Runs {@code java <arguments> --server.port=<free port>} until the first request is served.
+     */
+    static Startup firstRequest(List<String> arguments, Duration timeout) throws Exception {
+        int port = freePort();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books?size=1"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(arguments);
+        command.add("--server.port=" + port);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("The application exited with status " + process.exitValue());
+                }
+                try {
+                    if (HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        long millis = (System.nanoTime() - start) / 1_000_000;
+                        return new Startup(millis, rssKilobytes(process.pid()));
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(20);
+            }
+            throw new IllegalStateException("No request was served within " + timeout.toSeconds() + " s");
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    static long median(List<Long> values) {
+        return values.stream().sorted().skip(values.size() / 2).findFirst().orElse(0L);
+    }
+
+    private static long rssKilobytes(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        // VmRSS:	  123456 kB
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> Long.parseLong(line.substring(6).trim().split("\\s+")[0]))
+                .findFirst()
+                .orElse(-1L);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
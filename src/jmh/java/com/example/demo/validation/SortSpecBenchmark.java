@@ -0,0 +1,40 @@
+package com.example.demo.validation;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating and parsing the {@code sortBy} parameter, which every listing request pays
+ * twice: once in the {@code @BookOrders} constraint and once when the service builds its {@link Sort}.
+ * {@code parseUncached} shows what a request would pay without the shared cache of parsed sorts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortSpecBenchmark {
+
+    @Param({"", "title:ASC", "title:ASC, author:DESC, price:asc, releaseDate:desc"})
+    private String sortBy;
+
+    private final BookOrdersValidator validator = new BookOrdersValidator();
+
+    @Benchmark
+    public boolean validate() {
+        return validator.isValid(sortBy, null);
+    }
+
+    @Benchmark
+    public Sort parse() {
+        return BookSortParser.parse(sortBy);
+    }
+
+    @Benchmark
+    public Sort parseUncached() {
+        return BookSortParser.parseUncached(sortBy);
+    }
+}
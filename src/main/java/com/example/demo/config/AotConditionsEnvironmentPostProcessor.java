@@ -0,0 +1,63 @@
+package com.example.demo.config;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fails an AOT start ({@code -Dspring.aot.enabled=true}) whose environment would change a
+ * condition. The {@code startup} build settles every {@code @ConditionalOnProperty}, and the web
+ * application type, with the {@code prod} profile alone, so the AOT jar would otherwise ignore the
+ * {@code perf}, {@code file}, {@code replicas}, {@code virtual} or {@code reactive} profiles instead
+ * of applying them. Those run from the executable jar.
+ */
+public class AotConditionsEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        List<String> settled = settledProperties(environment);
+        if (!settled.isEmpty()) {
+            throw new IllegalStateException("The AOT-processed application was built with the prod profile alone and " +
+                    "cannot apply " + settled + "; start it without -Dspring.aot.enabled=true");
+        }
+    }
+
+    /**
+     * The properties whose values differ from the {@code startup} build in a way that would change
+     * which beans exist.
+     */
+    static List<String> settledProperties(Environment environment) {
+        List<String> settled = new ArrayList<>();
+        if (environment.containsProperty("books.storage.directory")) {
+            settled.add("books.storage.directory");
+        }
+        if (environment.containsProperty("books.replicas.urls")) {
+            settled.add("books.replicas.urls");
+        }
+        if (environment.getProperty("books.virtual-threads.enabled", Boolean.class, false)) {
+            settled.add("books.virtual-threads.enabled");
+        }
+        if (!environment.getProperty("books.compression.enabled", Boolean.class, true)) {
+            settled.add("books.compression.enabled");
+        }
+        if (!environment.getProperty("books.sql-metrics.enabled", Boolean.class, true)) {
+            settled.add("books.sql-metrics.enabled");
+        }
+        // JpaWebConfiguration registers the open-in-view interceptor unless this is false
+        if (!environment.getProperty("spring.jpa.open-in-view", Boolean.class, true)) {
+            settled.add("spring.jpa.open-in-view");
+        }
+        if ("reactive".equalsIgnoreCase(environment.getProperty("spring.main.web-application-type"))) {
+            settled.add("spring.main.web-application-type");
+        }
+        return settled;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.HalConfiguration;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.LinkRelationProvider;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary representations of books and pages, chosen with {@code Accept: application/cbor} or
+ * {@code Accept: application/x-jackson-smile}. The mappers start from the same builder as the JSON
+ * one, so they carry the application's Jackson settings and serializers, and they render the HAL
+ * document shape ({@code _links}, {@code _embedded}) so a client only swaps the parser.
+ * <p>
+ * Spring MVC registers plain CBOR and Smile converters on its own when the dataformats are on the
+ * classpath; they are replaced here because their mappers know neither of those. They go last, so
+ * that a response accepting any media type, such as an error message, is not written as CBOR.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BinaryMediaTypesConfiguration implements WebMvcConfigurer {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+    private final LinkRelationProvider linkRelationProvider;
+    private final ObjectProvider<CurieProvider> curieProvider;
+    private final ObjectProvider<HalConfiguration> halConfiguration;
+    private final ObjectProvider<MessageResolver> messageResolver;
+    private final AutowireCapableBeanFactory beanFactory;
+
+    public BinaryMediaTypesConfiguration(ObjectProvider<Jackson2ObjectMapperBuilder> builders,
+                                         LinkRelationProvider linkRelationProvider,
+                                         ObjectProvider<CurieProvider> curieProvider,
+                                         ObjectProvider<HalConfiguration> halConfiguration,
+                                         ObjectProvider<MessageResolver> messageResolver,
+                                         AutowireCapableBeanFactory beanFactory) {
+        this.builders = builders;
+        this.linkRelationProvider = linkRelationProvider;
+        this.curieProvider = curieProvider;
+        this.halConfiguration = halConfiguration;
+        this.messageResolver = messageResolver;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(halMapper(new CBORFactory())));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(halMapper(new SmileFactory())));
+    }
+
+    private ObjectMapper halMapper(JsonFactory factory) {
+        ObjectMapper mapper = builders.getIfAvailable(Jackson2ObjectMapperBuilder::new).factory(factory).build();
+        mapper.registerModule(new Jackson2HalModule());
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(linkRelationProvider,
+                curieProvider.getIfAvailable(() -> CurieProvider.NONE),
+                messageResolver.getIfAvailable(() -> MessageResolver.DEFAULTS_ONLY),
+                halConfiguration.getIfAvailable(HalConfiguration::new), beanFactory));
+        return mapper;
+    }
+}
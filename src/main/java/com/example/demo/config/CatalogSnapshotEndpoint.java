@@ -0,0 +1,45 @@
+package com.example.demo.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code POST /actuator/snapshot} writes a consistent copy of the file-backed database, taken
+ * online with H2's {@code BACKUP}, to {@code books.snapshot.file}. The zip is written next to it
+ * and moved into place, so a restore never reads a half-written snapshot.
+ */
+@Endpoint(id = "snapshot")
+public class CatalogSnapshotEndpoint {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path file;
+
+    public CatalogSnapshotEndpoint(JdbcTemplate jdbcTemplate, Path file) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.file = file.toAbsolutePath();
+    }
+
+    @WriteOperation
+    public Map<String, Object> snapshot() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(file.getParent());
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        Files.deleteIfExists(partial);
+        jdbcTemplate.execute("BACKUP TO '" + partial.toString().replace("'", "''") + "'");
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("file", file.toString());
+        result.put("bytes", Files.size(file));
+        result.put("millis", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.config;
+
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaType;
+
+/**
+ * Negotiated gzip/deflate compression of the servlet stack's responses ({@code books.compression.*}),
+ * done by {@link CompressionFilter} rather than the connector so that the threshold and the
+ * compressed types are the same whatever container runs the application.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "books.compression.enabled", havingValue = "true", matchIfMissing = true)
+public class CompressionConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<CompressionFilter> compressionFilter(
+            @Value("${books.compression.min-response-size:2048}") int minResponseSize,
+            @Value("${books.compression.level:6}") int level,
+            @Value("${books.compression.mime-types:application/json,application/*+json}") String mimeTypes) {
+        FilterRegistrationBean<CompressionFilter> registration =
+                new FilterRegistrationBean<>(new CompressionFilter(minResponseSize, level, MediaType.parseMediaTypes(mimeTypes)));
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        // outermost, so that nothing written by another filter bypasses it
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
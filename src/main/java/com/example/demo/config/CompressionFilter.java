@@ -0,0 +1,344 @@
+package com.example.demo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses responses with gzip or deflate, whichever {@code Accept-Encoding} prefers, using the
+ * JDK's deflater. The first {@code minResponseSize} bytes of a body are held back: a response that
+ * ends before that, or whose content type is not listed, is sent as it is and with its length.
+ * Once past the threshold, flushes go through the deflater, so a streamed export still reaches the
+ * client as it is written. The ETag of a compressed body is made weak, since its bytes differ from
+ * those of the identity encoding; {@code If-None-Match} compares weakly and {@code If-Match} only
+ * reads the version from the tag, so both keep working with it.
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final String RESPONSE_ATTRIBUTE = CompressionFilter.class.getName() + ".RESPONSE";
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final int minResponseSize;
+    private final int level;
+    private final List<MediaType> mimeTypes;
+
+    public CompressionFilter(int minResponseSize, int level, List<MediaType> mimeTypes) {
+        this.minResponseSize = minResponseSize;
+        this.level = level;
+        this.mimeTypes = List.copyOf(mimeTypes);
+    }
+
+    // async responses (the catalog export) are finished by the async dispatch that completes them
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CompressingResponse compressingResponse = (CompressingResponse) request.getAttribute(RESPONSE_ATTRIBUTE);
+        if (!isAsyncDispatch(request)) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            String encoding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            if (encoding == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+            compressingResponse = new CompressingResponse(response, encoding);
+            request.setAttribute(RESPONSE_ATTRIBUTE, compressingResponse);
+            chain.doFilter(request, compressingResponse);
+        } else {
+            chain.doFilter(request, response);
+        }
+
+        if (compressingResponse != null && !request.isAsyncStarted()) {
+            compressingResponse.finish();
+        }
+    }
+
+    /**
+     * The accepted coding with the highest quality, gzip on a tie, or null when neither is accepted.
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1, deflate = -1, any = -1;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            switch (name) {
+                case "gzip", "x-gzip" -> gzip = quality;
+                case "deflate" -> deflate = quality;
+                case "*" -> any = quality;
+                default -> { }
+            }
+        }
+        gzip = gzip < 0 ? any : gzip;
+        deflate = deflate < 0 ? any : deflate;
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? "gzip" : "deflate";
+    }
+
+    private boolean isCompressible(HttpServletResponse response) {
+        int status = response.getStatus();
+        if (status < 200 || status == HttpServletResponse.SC_NO_CONTENT || status == HttpServletResponse.SC_PARTIAL_CONTENT
+                || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null || response.getContentType() == null) {
+            return false;
+        }
+        try {
+            MediaType contentType = MediaType.parseMediaType(response.getContentType());
+            return mimeTypes.stream().anyMatch(mimeType -> mimeType.includes(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final String encoding;
+        private CompressingOutputStream outputStream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        CompressingResponse(HttpServletResponse response, String encoding) {
+            super(response);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called for this response");
+            }
+            return stream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (outputStream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called for this response");
+                }
+                writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // the length is only known to be right if the body ends up uncompressed
+        @Override
+        public void setContentLength(int length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        // committing now would send the headers before it is known whether the body is compressed
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream == null) {
+                super.flushBuffer();
+            } else if (outputStream.out != null) {
+                outputStream.flush();
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (outputStream != null) {
+                outputStream.reset();
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            contentLength = -1;
+            if (outputStream != null) {
+                outputStream.reset();
+            }
+        }
+
+        private CompressingOutputStream stream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CompressingOutputStream(this, super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream != null) {
+                outputStream.finish();
+            } else if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+        }
+
+        void passContentLength(long length) {
+            if (length >= 0) {
+                super.setContentLengthLong(length);
+            }
+        }
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        private final CompressingResponse response;
+        private final ServletOutputStream target;
+        private byte[] buffer = new byte[Math.max(minResponseSize, 1)];
+        private int count;
+        private OutputStream out;
+
+        CompressingOutputStream(CompressingResponse response, ServletOutputStream target) {
+            this.response = response;
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (out == null && count < buffer.length) {
+                buffer[count++] = (byte) b;
+                return;
+            }
+            start(true);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (out == null && count + length <= buffer.length) {
+                System.arraycopy(bytes, offset, buffer, count, length);
+                count += length;
+                return;
+            }
+            start(true);
+            out.write(bytes, offset, length);
+        }
+
+        // message converters flush after every body, so the held back bytes stay until the threshold or the end
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            target.setWriteListener(writeListener);
+        }
+
+        void reset() {
+            if (out == null) {
+                count = 0;
+            }
+        }
+
+        void finish() throws IOException {
+            if (out == null) {
+                response.passContentLength(response.contentLength >= 0 ? response.contentLength : count);
+                start(false);
+            }
+            if (out != target) {
+                out.close();
+            }
+        }
+
+        private void start(boolean large) throws IOException {
+            if (out != null) {
+                return;
+            }
+            if (large && isCompressible(response)) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, response.encoding);
+                String eTag = response.getHeader(HttpHeaders.ETAG);
+                if (eTag != null && !eTag.startsWith("W/")) {
+                    response.setHeader(HttpHeaders.ETAG, "W/" + eTag);
+                }
+                out = response.encoding.equals("gzip")
+                        ? new GZIPOutputStream(target, BUFFER_SIZE, true) {{ def.setLevel(level); }}
+                        : new DeflaterOutputStream(target, new Deflater(level), BUFFER_SIZE, true) {
+                            // a deflater passed in is not released by close()
+                            @Override
+                            public void close() throws IOException {
+                                try {
+                                    super.close();
+                                } finally {
+                                    def.end();
+                                }
+                            }
+                        };
+            } else {
+                response.passContentLength(response.contentLength);
+                out = target;
+            }
+            out.write(buffer, 0, count);
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * File-backed catalog ({@code file} profile): restores a snapshot into
+ * {@code books.storage.directory} before the first connection is opened, and publishes the
+ * {@code snapshot} endpoint that writes one. Restoring copies the database file out of the zip,
+ * so a prebuilt catalog of any size is ready as soon as the file is in place, with no inserts.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "books.storage.directory")
+public class FileStorageConfiguration {
+
+    public enum RestoreMode { IF_MISSING, ALWAYS, NEVER }
+
+    @Bean
+    public CatalogSnapshotEndpoint catalogSnapshotEndpoint(JdbcTemplate jdbcTemplate, Environment environment) {
+        return new CatalogSnapshotEndpoint(jdbcTemplate, Path.of(environment.getRequiredProperty("books.snapshot.file")));
+    }
+
+    // the pool opens the database on the first getConnection, after the data source is initialized
+    @Bean
+    public static BeanPostProcessor snapshotRestorePostProcessor(Environment environment) {
+        AtomicBoolean restored = new AtomicBoolean();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && restored.compareAndSet(false, true)) {
+                    String snapshot = environment.getProperty("books.snapshot.file");
+                    if (snapshot != null) {
+                        restore(Path.of(snapshot), Path.of(environment.getRequiredProperty("books.storage.directory")),
+                                environment.getProperty("books.storage.name", "books"),
+                                environment.getProperty("books.snapshot.restore", RestoreMode.class, RestoreMode.IF_MISSING));
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Replaces the database {@code name} in {@code directory} with the one in {@code snapshot} as
+     * {@code mode} says. Returns whether it did; a missing snapshot is not an error.
+     */
+    public static boolean restore(Path snapshot, Path directory, String name, RestoreMode mode) {
+        Path database = directory.resolve(name + ".mv.db");
+        if (mode == RestoreMode.NEVER || !Files.isRegularFile(snapshot)
+                || (mode == RestoreMode.IF_MISSING && Files.exists(database))) {
+            return false;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path partial = directory.resolve(name + ".mv.db.partial");
+            if (!extractDatabase(snapshot, partial)) {
+                throw new IllegalStateException("No database file in snapshot " + snapshot);
+            }
+            Files.move(partial, database, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    // BACKUP TO writes a zip with the database file under its own name, whatever the target is called
+    private static boolean extractDatabase(Path snapshot, Path target) throws IOException {
+        try (InputStream file = Files.newInputStream(snapshot); ZipInputStream zip = new ZipInputStream(file)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (!entry.isDirectory() && entry.getName().endsWith(".mv.db")) {
+                    Files.copy(zip, target, StandardCopyOption.REPLACE_EXISTING);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Meters on top of the ones Spring Boot publishes for requests ({@code http.server.requests}),
+ * repository invocations ({@code spring.data.repository.invocations}), the connection pool
+ * ({@code hikaricp.*}) and Hibernate ({@code hibernate.*}): {@code @Timed} service methods, rows
+ * returned by repository queries, and statement timings with sampled SQL logging.
+ * <p>
+ * The post-processors are static and look the registry up lazily, so they neither initialize it
+ * early nor keep the data source and repositories from being post-processed by anything else.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfiguration {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public static BeanPostProcessor repositoryRowMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            // the repository is created in afterPropertiesSet, so the customizer goes in before it
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(new RepositoryRowMetrics(
+                                    SingletonSupplier.of(meterRegistry::getObject), repositoryInformation.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "books.sql-metrics.enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor statementMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                  Environment environment) {
+        Duration slowThreshold = environment.getProperty("books.sql-log.slow-threshold", Duration.class, Duration.ofMillis(250));
+        double sampleRate = environment.getProperty("books.sql-log.sample-rate", Double.class, 0.0);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementMetricsDataSource)) {
+                    return new StatementMetricsDataSource(dataSource, meterRegistry::getObject, slowThreshold, sampleRate);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.config;
+
+import com.example.demo.config.ReplicaRoutingDataSource.Client;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Scopes the read-your-writes of {@link ReplicaRoutingDataSource} to a client: the position of its
+ * last write travels in the {@value #COOKIE} cookie, set by the response that made the write, and
+ * is bound to the thread of each of its requests. A client that does not return the cookie reads
+ * its writes within the request that made them, and from the replicas afterwards.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "books-writes";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Client client = client(request, written -> response.addHeader(HttpHeaders.SET_COOKIE,
+                ResponseCookie.from(COOKIE, written.getWrites() + "-" + written.getLastWriteMillis())
+                        .path("/").httpOnly(true).build().toString()));
+        ReplicaRoutingDataSource.bindClient(client);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.unbindClient();
+        }
+    }
+
+    // a missing or malformed cookie is a client without writes
+    private static Client client(HttpServletRequest request, Consumer<Client> onWrite) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE.equals(cookie.getName())) {
+                    String[] position = cookie.getValue().split("-");
+                    try {
+                        if (position.length == 2) {
+                            return new Client(Long.parseLong(position[0]), Long.parseLong(position[1]), onWrite);
+                        }
+                    } catch (NumberFormatException e) {
+                        // ignored, as a missing cookie
+                    }
+                    break;
+                }
+            }
+        }
+        return new Client(0, 0, onWrite);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.config;
+
+import com.example.demo.config.ReplicaRoutingDataSource.Replica;
+import com.example.demo.config.ReplicaRoutingDataSource.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas ({@code replicas} profile): the data source sends read-only transactions to the
+ * pools of {@code books.replicas.urls} and everything else to the primary of
+ * {@code spring.datasource.url}, all of them configured by {@code spring.datasource.hikari.*}.
+ * With {@code books.replicas.stand-in.interval} set, {@link ReplicationStandIn} keeps the replicas
+ * in sync, so that they can be local H2 databases. {@link ReadYourWritesFilter} ties each request to
+ * the client's last write. The pools are hidden from Boot's pool metrics by the routing, so each one
+ * reports its {@code hikaricp.*} meters itself, tagged with its pool name.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "books.replicas.urls")
+public class ReplicaRoutingConfiguration {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        Binder binder = Binder.get(environment);
+        boolean tracked = environment.containsProperty("books.replicas.stand-in.interval");
+        List<Replica> replicas = new ArrayList<>();
+        for (String url : environment.getRequiredProperty("books.replicas.urls", String[].class)) {
+            String name = "replica-" + replicas.size();
+            replicas.add(new Replica(name, pool(properties, binder, meterRegistry, name, url.trim()), tracked));
+        }
+        return new LazyRoutingDataSource(new ReplicaRoutingDataSource(
+                pool(properties, binder, meterRegistry, "primary", properties.determineUrl()), replicas,
+                environment.getProperty("books.replicas.selection", Selection.class, Selection.ROUND_ROBIN),
+                environment.getProperty("books.replicas.max-lag", Duration.class, Duration.ofSeconds(2)),
+                meterRegistry::getObject));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "books.replicas.stand-in.interval")
+    public ReplicationStandIn replicationStandIn(DataSource dataSource, Environment environment) throws SQLException {
+        return new ReplicationStandIn(dataSource.unwrap(ReplicaRoutingDataSource.class),
+                environment.getProperty("spring.flyway.locations", String[].class, new String[]{"classpath:db/migration"}),
+                environment.getRequiredProperty("books.replicas.stand-in.interval", Duration.class));
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(new ReadYourWritesFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    // the pool starts, and creates its meters, on its first connection, once the registry can be built
+    private static HikariDataSource pool(DataSourceProperties properties, Binder binder,
+                                         ObjectProvider<MeterRegistry> meterRegistry, String name, String url) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory((poolName, poolStats) ->
+                new MicrometerMetricsTrackerFactory(meterRegistry.getObject()).create(poolName, poolStats));
+        return pool;
+    }
+
+    // defers the routing to the first statement, once the transaction is marked read-only; closing
+    // it on shutdown closes the pools
+    private static class LazyRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        LazyRoutingDataSource(ReplicaRoutingDataSource routingDataSource) {
+            super(routingDataSource);
+        }
+
+        @Override
+        public void close() throws Exception {
+            ((ReplicaRoutingDataSource) obtainTargetDataSource()).close();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Sends the connections of read-only transactions to a replica, chosen round-robin or as the one
+ * with the fewest connections in use, and every other connection to the primary. The choice is
+ * made when the connection is requested, so the data source must be behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: transaction managers
+ * open the connection before the transaction is marked read-only.
+ * <p>
+ * A primary connection that executes anything but a query counts as a write: when its transaction
+ * commits, or when it is closed if it is not in one. The write is recorded on the {@link Client}
+ * bound to the thread, and that client's reads stay on the primary until a replica has applied it,
+ * so it reads its own writes while other clients keep reading from the replicas. A replica whose
+ * position is tracked (by {@link ReplicationStandIn}) has applied the writes it reports; an
+ * untracked one is trusted {@code maxLag} after the client's last write. Threads without a client
+ * read from any replica that has been synchronized.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    public enum Selection { ROUND_ROBIN, LEAST_LOADED }
+
+    private static final ThreadLocal<Client> CLIENT = new ThreadLocal<>();
+
+    // statements that only read, after any leading comments
+    private static final Pattern QUERY = Pattern.compile("^\\s*(/\\*.*?\\*/\\s*)*(select|values|explain|show)\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final long maxLagMillis;
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, Selection selection, Duration maxLag,
+                                    Supplier<MeterRegistry> meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+        this.maxLagMillis = maxLag.toMillis();
+        this.meterRegistry = SingletonSupplier.of(meterRegistry);
+    }
+
+    /**
+     * Binds the client of the current request to the thread, until {@link #unbindClient()}.
+     */
+    public static void bindClient(Client client) {
+        CLIENT.set(client);
+    }
+
+    public static void unbindClient() {
+        CLIENT.remove();
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Writes committed so far: a replica that has applied this many is up to date.
+     */
+    public long getWrites() {
+        return writes.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            count("primary");
+            return trackWrites(source.open(primary));
+        }
+        Replica replica = select();
+        if (replica == null) {
+            count("primary");
+            return source.open(primary);
+        }
+        count(replica.name);
+        Connection connection = source.open(replica.dataSource);
+        replica.inUse.incrementAndGet();
+        return onClose(connection, replica.inUse::decrementAndGet);
+    }
+
+    private Replica select() {
+        Client client = CLIENT.get();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(replicas.size(), 1));
+        Replica selected = null;
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!isCaughtUp(replica, client)) {
+                continue;
+            }
+            if (selection == Selection.ROUND_ROBIN) {
+                return replica;
+            }
+            if (selected == null || replica.inUse.get() < selected.inUse.get()) {
+                selected = replica;
+            }
+        }
+        return selected;
+    }
+
+    private boolean isCaughtUp(Replica replica, Client client) {
+        if (client == null) {
+            return !replica.tracked || replica.appliedWrites >= 0;
+        }
+        // a position from before a restart, when the count started again, waits for no more than all the writes
+        return replica.tracked
+                ? replica.appliedWrites >= Math.min(client.writes, writes.get())
+                : System.currentTimeMillis() - client.lastWriteMillis >= maxLagMillis;
+    }
+
+    private void markWrite() {
+        long position = writes.incrementAndGet();
+        Client client = CLIENT.get();
+        if (client != null) {
+            client.wrote(position, System.currentTimeMillis());
+        }
+    }
+
+    private void count(String target) {
+        counters.computeIfAbsent(target, key -> Counter.builder("books.datasource.connections")
+                        .description("Connections handed out by the replica routing data source")
+                        .tag("target", key)
+                        .register(meterRegistry.get()))
+                .increment();
+    }
+
+    // runs the action once, after the connection is closed
+    private Connection onClose(Connection connection, Runnable action) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return proxy(Connection.class, connection, (method, args) -> {
+            if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                action.run();
+            }
+        });
+    }
+
+    private Connection trackWrites(Connection connection) {
+        WriteTracker tracker = new WriteTracker();
+        return onClose(proxy(Connection.class, connection, (method, args) -> {
+            if ((method.getName().equals("prepareStatement") || method.getName().equals("prepareCall"))
+                    && isWrite((String) args[0])) {
+                tracker.written();
+            }
+        }, (method, result) -> method.getName().equals("createStatement")
+                ? proxy(Statement.class, (Statement) result, (statementMethod, args) -> {
+                    if ((statementMethod.getName().startsWith("execute") || statementMethod.getName().equals("addBatch"))
+                            && args != null && args.length > 0 && args[0] instanceof String sql && isWrite(sql)) {
+                        tracker.written();
+                    }
+                })
+                : result), tracker::closed);
+    }
+
+    private static boolean isWrite(String sql) {
+        return !QUERY.matcher(sql).find();
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Interceptor after) {
+        return proxy(type, target, after, (method, result) -> result);
+    }
+
+    // calls the interceptor once each call returns or throws, and lets wrap replace the result
+    private static <T> T proxy(Class<T> type, T target, Interceptor after, BiFunction<Method, Object, Object> wrap) {
+        return type.cast(Proxy.newProxyInstance(ReplicaRoutingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    try {
+                        return wrap.apply(method, method.invoke(target, args));
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        after.called(method, args);
+                    }
+                }));
+    }
+
+    @FunctionalInterface
+    private interface Interceptor {
+        void called(Method method, Object[] args);
+    }
+
+    // counts a write once per transaction on commit, or on close for a connection outside one
+    private class WriteTracker {
+
+        private boolean pending;
+        private boolean synchronizedWrite;
+
+        void written() {
+            if (TransactionSynchronizationManager.isSynchronizationActive()
+                    && TransactionSynchronizationManager.isActualTransactionActive()) {
+                if (!synchronizedWrite) {
+                    synchronizedWrite = true;
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            markWrite();
+                        }
+
+                        @Override
+                        public void afterCompletion(int status) {
+                            synchronizedWrite = false;
+                        }
+                    });
+                }
+            } else {
+                pending = true;
+            }
+        }
+
+        void closed() {
+            if (pending) {
+                pending = false;
+                markWrite();
+            }
+        }
+    }
+
+    /**
+     * The last write of a client: the number of writes committed up to it, and when it was made.
+     * {@code onWrite} is told of each new write, to hand the position back to the client.
+     */
+    public static final class Client {
+
+        private final Consumer<Client> onWrite;
+        private long writes;
+        private long lastWriteMillis;
+
+        public Client(long writes, long lastWriteMillis, Consumer<Client> onWrite) {
+            this.writes = writes;
+            this.lastWriteMillis = lastWriteMillis;
+            this.onWrite = onWrite;
+        }
+
+        public long getWrites() {
+            return writes;
+        }
+
+        public long getLastWriteMillis() {
+            return lastWriteMillis;
+        }
+
+        private void wrote(long writes, long lastWriteMillis) {
+            this.writes = writes;
+            this.lastWriteMillis = lastWriteMillis;
+            onWrite.accept(this);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+
+    /**
+     * A replica data source. Tracked replicas are only read once they report the last write as applied.
+     */
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final boolean tracked;
+        private final AtomicInteger inUse = new AtomicInteger();
+        private volatile long appliedWrites = -1;
+
+        public Replica(String name, DataSource dataSource, boolean tracked) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.tracked = tracked;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public long getAppliedWrites() {
+            return appliedWrites;
+        }
+
+        public void setAppliedWrites(long appliedWrites) {
+            this.appliedWrites = appliedWrites;
+        }
+    }
+}
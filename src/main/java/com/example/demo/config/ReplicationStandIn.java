@@ -0,0 +1,150 @@
+package com.example.demo.config;
+
+import com.example.demo.config.ReplicaRoutingDataSource.Replica;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for database replication, to run the replicas locally: creates the schema of each
+ * replica with the Flyway migrations and then, every {@code interval}, copies the tables of the
+ * primary to the replicas that are behind it. Each copy is a single transaction, so readers of a
+ * replica see either the previous copy or the new one. Whole tables are copied, which only suits
+ * catalogs of test size.
+ */
+public class ReplicationStandIn implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationStandIn.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final String[] locations;
+    private final Duration interval;
+    private ScheduledExecutorService executor;
+
+    public ReplicationStandIn(ReplicaRoutingDataSource routingDataSource, String[] locations, Duration interval) {
+        this.routingDataSource = routingDataSource;
+        this.locations = locations.clone();
+        this.interval = interval;
+    }
+
+    @Override
+    public synchronized void start() {
+        migrate();
+        executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replication-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::replicate, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    public void migrate() {
+        for (Replica replica : routingDataSource.getReplicas()) {
+            Flyway.configure().dataSource(replica.getDataSource()).locations(locations).load().migrate();
+        }
+    }
+
+    /**
+     * Brings every replica that is behind up to date with the writes committed so far.
+     */
+    public void replicate() {
+        for (Replica replica : routingDataSource.getReplicas()) {
+            // read before copying: the writes counted are committed, so the copy includes them
+            long writes = routingDataSource.getWrites();
+            if (replica.getAppliedWrites() >= writes) {
+                continue;
+            }
+            try {
+                copy(routingDataSource.getPrimary(), replica.getDataSource());
+                replica.setAppliedWrites(writes);
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Could not replicate to {}", replica.getName(), e);
+            }
+        }
+    }
+
+    private static void copy(DataSource source, DataSource target) throws SQLException {
+        try (Connection from = source.getConnection(); Connection to = target.getConnection()) {
+            to.setAutoCommit(false);
+            try {
+                for (String table : tables(from)) {
+                    copy(from, to, table);
+                }
+                to.commit();
+            } catch (SQLException | RuntimeException e) {
+                to.rollback();
+                throw e;
+            } finally {
+                to.setAutoCommit(true);
+            }
+        }
+    }
+
+    // the schema is the replica's own, from the same migrations
+    private static List<String> tables(Connection connection) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+                     "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE'")) {
+            while (rs.next()) {
+                if (!rs.getString(1).equalsIgnoreCase("flyway_schema_history")) {
+                    tables.add(rs.getString(1));
+                }
+            }
+        }
+        return tables;
+    }
+
+    private static void copy(Connection from, Connection to, String table) throws SQLException {
+        String name = '"' + table.replace("\"", "\"\"") + '"';
+        try (Statement delete = to.createStatement()) {
+            delete.executeUpdate("DELETE FROM " + name);
+        }
+        try (Statement select = from.createStatement();
+             ResultSet rs = select.executeQuery("SELECT * FROM " + name)) {
+            int columns = rs.getMetaData().getColumnCount();
+            String values = String.join(", ", Collections.nCopies(columns, "?"));
+            try (PreparedStatement insert = to.prepareStatement("INSERT INTO " + name + " VALUES (" + values + ")")) {
+                int rows = 0;
+                while (rs.next()) {
+                    for (int column = 1; column <= columns; column++) {
+                        insert.setObject(column, rs.getObject(column));
+                    }
+                    insert.addBatch();
+                    if (++rows % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Records how many rows each repository query returns, as the {@code books.repository.rows}
+ * summary tagged with the repository and the method. Methods that return neither a collection, a
+ * page or slice, nor an optional (counts, updates, streams consumed later) are not recorded.
+ */
+public class RepositoryRowMetrics implements MethodInterceptor {
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final String repository;
+    private final Map<Method, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public RepositoryRowMetrics(Supplier<MeterRegistry> meterRegistry, Class<?> repositoryInterface) {
+        this.meterRegistry = meterRegistry;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        long rows = rowsOf(result);
+        if (rows >= 0) {
+            summaries.computeIfAbsent(invocation.getMethod(), method -> DistributionSummary.builder("books.repository.rows")
+                            .description("Rows returned by repository queries")
+                            .baseUnit("rows")
+                            .tag("repository", repository)
+                            .tag("method", method.getName())
+                            .register(meterRegistry.get()))
+                    .record(rows);
+        }
+        return result;
+    }
+
+    static long rowsOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        } else if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        } else if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        } else if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Startup support for the {@code prod} profile and the {@code startup} build. With lazy
+ * initialization on, the data source, the migration and the EntityManagerFactory are still created
+ * at startup: they are needed by the first request anyway, and a wrong schema or an unreachable
+ * database should fail the start rather than the first request.
+ * <p>
+ * A CDS training run ({@code -Dbooks.startup.exit-on-ready=true}) stops once the application is
+ * ready, so the archive holds the classes a start loads. The property is read at runtime rather
+ * than through a condition, which AOT processing would settle at build time.
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfiguration {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerPersistenceBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, Flyway.class,
+                FlywayMigrationInitializer.class, EntityManagerFactory.class);
+    }
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> trainingRunExit() {
+        return event -> {
+            if (event.getApplicationContext().getEnvironment().getProperty("books.startup.exit-on-ready", Boolean.class, false)) {
+                System.exit(SpringApplication.exit(event.getApplicationContext()));
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Times every statement executed through the data source as {@code books.jdbc.statements}, tagged
+ * with its kind ({@code select}, {@code count}, {@code insert}, {@code update}, {@code delete},
+ * {@code other}) so that the count queries of paged listings show apart from the reads they go
+ * with. Instead of printing every statement, those slower than {@code slowThreshold} are logged as
+ * warnings and a {@code sampleRate} fraction of the rest at info level.
+ */
+public class StatementMetricsDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementMetricsDataSource.class);
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final Pattern COUNT = Pattern.compile("^select\\s+count\\s*\\(");
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public StatementMetricsDataSource(DataSource dataSource, Supplier<MeterRegistry> meterRegistry,
+                                      Duration slowThreshold, double sampleRate) {
+        super(dataSource);
+        // resolved on the first statement, the registry's own binders may need this data source
+        this.meterRegistry = SingletonSupplier.of(meterRegistry);
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrument(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrument(super.getConnection(username, password));
+    }
+
+    // the context closes the data source bean it sees, which is this wrapper and not the pool
+    @Override
+    public void close() throws Exception {
+        DataSource target = obtainTargetDataSource();
+        if (target.isWrapperFor(AutoCloseable.class)) {
+            target.unwrap(AutoCloseable.class).close();
+        }
+    }
+
+    static String kindOf(String sql) {
+        if (sql == null) {
+            return "other";
+        }
+        String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+        if (COUNT.matcher(statement).find()) {
+            return "count";
+        }
+        for (String kind : new String[]{"select", "insert", "update", "delete"}) {
+            if (statement.startsWith(kind)) {
+                return kind;
+            }
+        }
+        return statement.startsWith("with") ? "select" : "other";
+    }
+
+    private Connection instrument(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement && method.getReturnType().isInterface()
+                            && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                        return instrument(statement, method.getReturnType(), sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Object instrument(Statement statement, Class<?> type, String preparedSql) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!EXECUTE_METHODS.contains(method.getName())) {
+                        return invoke(statement, method, args);
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                    long start = System.nanoTime();
+                    boolean failed = true;
+                    try {
+                        Object result = invoke(statement, method, args);
+                        failed = false;
+                        return result;
+                    } finally {
+                        record(sql, System.nanoTime() - start, failed);
+                    }
+                });
+    }
+
+    private void record(String sql, long nanos, boolean failed) {
+        String kind = kindOf(sql);
+        String outcome = failed ? "error" : "success";
+        timers.computeIfAbsent(kind + ":" + outcome, key -> Timer.builder("books.jdbc.statements")
+                        .description("Statements executed through the application's data source")
+                        .tag("kind", kind)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry.get()))
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        if (nanos >= slowThresholdNanos) {
+            log.warn("Slow {} statement took {} ms: {}", kind, TimeUnit.NANOSECONDS.toMillis(nanos), sql);
+        } else if (sampleRate > 0 && log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("Sampled {} statement took {} ms: {}", kind, TimeUnit.NANOSECONDS.toMillis(nanos), sql);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -3,9 +3,16 @@ package com.example.demo.controller;
 import com.example.demo.dto.*;
 import com.example.demo.error.BookAlreadyExistException;
 import com.example.demo.error.BookNotFoundException;
+import com.example.demo.error.BookPreconditionFailedException;
+import com.example.demo.error.InvalidExportException;
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.dao.BookSummary;
+import com.example.demo.persistence.dao.BookVersion;
 import com.example.demo.persistence.model.Book;
 import com.example.demo.service.BookService;
 import com.example.demo.validation.BookOrders;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
@@ -15,31 +22,57 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.format.annotation.NumberFormat;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 
 
 @RestController
 @RequestMapping("/api/books")
 @Validated
 @CrossOrigin(origins = "http://localhost:3000")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class BookController {
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String TOTAL_COUNT_ESTIMATE_HEADER = "X-Total-Count-Estimate";
+    public static final String COMPACT_JSON_VALUE = "application/vnd.books.compact+json";
+    public static final MediaType COMPACT_JSON = MediaType.parseMediaType(COMPACT_JSON_VALUE);
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
     @Autowired
     private BookService bookService;
     @Autowired
     private BookModelAssembler bookModelAssembler;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BookExportWriter bookExportWriter;
 
     @PostMapping(produces = MediaTypes.HAL_JSON_VALUE)
     @ResponseStatus(HttpStatus.CREATED)
@@ -54,19 +87,36 @@ public class BookController {
     })
     public ResponseEntity<?>  createBook(@Valid @RequestBody Book book) {
 
-        if(bookService.isExist(book)) {
-            throw new BookAlreadyExistException(book);
-        }
+        Book savedBook = bookService.saveBookIfAbsent(book)
+                .orElseThrow(() -> new BookAlreadyExistException(book));
 
-        EntityModel<Book> bookEntityModel = bookModelAssembler.toModel(bookService.saveBook(book));
+        EntityModel<Book> bookEntityModel = bookModelAssembler.toModel(savedBook);
 
         return ResponseEntity
                 .created(bookEntityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
                 .body(bookEntityModel);
     }
 
-    @GetMapping(produces = MediaTypes.HAL_JSON_VALUE)
-    @Operation(operationId = "get-books", summary = "Obtener una lista de libros", description = "Parámetros de búsqueda")
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(operationId = "import-books", summary = "Importar libros de forma masiva")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Arreglo JSON de libros o un libro por línea (NDJSON). El cuerpo se procesa a medida que se lee.",
+            content = @Content(schema = @Schema(implementation = Book.class)) )
+    @ApiResponse(responseCode = "200", description = "Se retorna un resumen con el resultado de cada libro " +
+            "(CREATED, DUPLICATE o INVALID) en el orden en que fueron enviados.",
+            content = @Content(schema = @Schema(implementation = BookImportSummary.class)) )
+    public BookImportSummary importBooks(InputStream body) throws IOException {
+        try (MappingIterator<Book> books = objectMapper.readerFor(Book.class).readValues(body)) {
+            return bookService.importBooks(books);
+        }
+    }
+
+    @GetMapping(produces = {MediaTypes.HAL_JSON_VALUE, COMPACT_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, SMILE_VALUE})
+    @Operation(operationId = "get-books", summary = "Obtener una lista de libros", description = "Parámetros de búsqueda. " +
+            "Con 'Accept: " + COMPACT_JSON_VALUE + "' se retorna una representación compacta: un arreglo plano de libros " +
+            "leído sin cargar las entidades y un único enlace con plantilla a cada libro. Con 'Accept: " +
+            MediaType.APPLICATION_CBOR_VALUE + "' o '" + SMILE_VALUE + "' se retorna el mismo documento HAL en formato binario.")
     @Parameters(value = {
             @Parameter(name = "page", description = "Número de página"),
             @Parameter(name = "size", description = "Tamaño de la página devuelta"),
@@ -78,7 +128,13 @@ public class BookController {
             @Parameter(name = "releaseDateTo", description = "Fecha de publicación hasta. Formato: dd-mm-yyyy", example = "31-12-9999", schema = @Schema(type = "date")),
             @Parameter(name = "sortBy", description = "Se admite un criterio de ordenación múltiple indicando la propiedad " +
                     "seguido de dos puntos y la dirección de ordenación (ASC: orden ascendente, DESC: orden descendente). Cada propiedad debe estar separada por coma con orden de prioridad de izquierda a derecha. " +
-                    "\n\nEj.: 'title:DESC, price:ASC, releaseDate:DESC, author:ASC'")
+                    "\n\nEj.: 'title:DESC, price:ASC, releaseDate:DESC, author:ASC'"),
+            @Parameter(name = "cursor", description = "Paginación por cursor. Se envía vacío para obtener la primera página " +
+                    "y luego el valor indicado en el enlace 'next' de la respuesta. Si está presente se ignora el parámetro 'page'."),
+            @Parameter(name = "withTotal", description = "Si es 'false' no se calcula el total de libros: se retorna la página " +
+                    "con un enlace 'next' y, si está disponible, un total aproximado en la cabecera " + TOTAL_COUNT_ESTIMATE_HEADER + "."),
+            @Parameter(name = "q", description = "Búsqueda de texto completo por título y autor. Admite prefijos y los resultados " +
+                    "se ordenan por relevancia, por lo que se ignoran los parámetros 'title', 'author', 'sortBy' y 'cursor'.")
     })
     @ApiResponse(responseCode = "200", description = "Se retorna una lista de libros o una lista vacía de no haber " +
             "libros en la base de datos. Se define la represención de las relaciones de enlaces en cada tipo de datos devuelto.")
@@ -94,35 +150,183 @@ public class BookController {
             @RequestParam(required = false, defaultValue = "#{T(java.time.LocalDate).of(9999,12,31)}")
             @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate releaseDateTo,
             @RequestParam(required = false, defaultValue = "")
-            @BookOrders String sortBy
+            @BookOrders String sortBy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "true") boolean withTotal,
+            @RequestParam(required = false) String q,
+            WebRequest request
     )
     {
+        String accept = request == null ? null : request.getHeader(HttpHeaders.ACCEPT);
+        boolean compact = accepts(accept, COMPACT_JSON);
+        String representation = compact ? "-compact" : binaryRepresentation(accept);
+        // read before the listing so that a write racing with it can only make the tag older
+        String eTag = "\"books-" + bookService.getCatalogVersion() + representation + "\"";
+        if (request != null && request.checkNotModified(eTag)) {
+            return null;
+        }
+
         CollectionModel<EntityModel<Book>> collectionModel;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        headers.setCacheControl(CacheControl.noCache());
+        headers.setVary(List.of(HttpHeaders.ACCEPT));
+        if (page < 0 || size < 1) {
+            return ResponseEntity.badRequest().body("The page must not be negative and the size must be at least one.");
+        }
+        BigDecimal startPrice_BigDecimal, endPrice_BigDecimal;
         try {
-            BigDecimal startPrice_BigDecimal = new BigDecimal(startPrice),
-                    endPrice_BigDecimal = new BigDecimal(endPrice);
+            startPrice_BigDecimal = new BigDecimal(startPrice);
+            endPrice_BigDecimal = new BigDecimal(endPrice);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Enter a valid numeric value to filter by book price.");
+        }
+        // a malformed cursor or sort reaches ErrorAdvice as InvalidCursorException or InvalidSortException
+        BookFilter filter = new BookFilter(title, author, startPrice_BigDecimal, endPrice_BigDecimal,
+                releaseDateFrom, releaseDateTo);
+
+        if (compact) {
+            BookCompactPage compactPage = getCompactBooks(page, size, filter, sortBy, cursor, withTotal, q, headers);
+            return ResponseEntity.ok().headers(headers).contentType(COMPACT_JSON).body(compactPage);
+        } else if (q != null && !q.isBlank()) {
+            Page<Book> bookPage = bookService.searchBooks(q, filter, page, size);
+            headers.set(TOTAL_COUNT_HEADER, String.valueOf(bookPage.getTotalElements()));
+
+            collectionModel = bookModelAssembler.toCollectionModel( bookPage );
+        } else if (cursor != null) {
+            collectionModel = bookModelAssembler.toCollectionModel(
+                    bookService.getFilteredBooksAfterCursor(filter, size, sortBy, cursor));
+        } else if (!withTotal) {
+            Slice<Book> bookSlice = bookService.getFilteredBooksSlice(page, size, filter, sortBy);
+            bookService.getEstimatedTotal(filter)
+                    .ifPresent(total -> headers.set(TOTAL_COUNT_ESTIMATE_HEADER, String.valueOf(total)));
 
+            collectionModel = bookModelAssembler.toSliceModel( bookSlice );
+        } else {
             Page<Book> bookPage = bookService.getFilteredAndPaginatedBooks(page, size, title, author,
                     startPrice_BigDecimal, endPrice_BigDecimal, releaseDateFrom, releaseDateTo, sortBy);
+            headers.set(TOTAL_COUNT_HEADER, String.valueOf(bookPage.getTotalElements()));
 
             collectionModel = bookModelAssembler.toCollectionModel( bookPage );
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Enter a valid numeric value to filter by book price.");
         }
-        return ResponseEntity.ok(collectionModel);
+        return ResponseEntity.ok().headers(headers).body(collectionModel);
+    }
+
+    private BookCompactPage getCompactBooks(int page, int size, BookFilter filter, String sortBy, String cursor,
+                                            boolean withTotal, String q, HttpHeaders headers) {
+        if (q != null && !q.isBlank()) {
+            Page<Book> bookPage = bookService.searchBooks(q, filter, page, size);
+            headers.set(TOTAL_COUNT_HEADER, String.valueOf(bookPage.getTotalElements()));
+            return bookModelAssembler.toCompactPage(bookPage.map(BookSummary::of));
+        } else if (cursor != null) {
+            return bookModelAssembler.toCompactPage(bookService.getFilteredBooksAfterCursor(filter, size, sortBy, cursor));
+        } else if (!withTotal) {
+            Slice<BookSummary> summarySlice = bookService.getFilteredBookSummariesSlice(page, size, filter, sortBy);
+            bookService.getEstimatedTotal(filter)
+                    .ifPresent(total -> headers.set(TOTAL_COUNT_ESTIMATE_HEADER, String.valueOf(total)));
+            return bookModelAssembler.toCompactPage(summarySlice);
+        }
+        Page<BookSummary> summaryPage = bookService.getFilteredBookSummaries(page, size, filter, sortBy);
+        headers.set(TOTAL_COUNT_HEADER, String.valueOf(summaryPage.getTotalElements()));
+        return bookModelAssembler.toCompactPage(summaryPage);
+    }
+
+    // suffix of the entity tags of the CBOR and Smile representations, empty for HAL
+    private static String binaryRepresentation(String accept) {
+        return accepts(accept, MediaType.APPLICATION_CBOR) ? "-cbor" : accepts(accept, SMILE) ? "-smile" : "";
+    }
+
+    private static boolean accepts(String accept, MediaType mediaType) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream().anyMatch(mediaType::equalsTypeAndSubtype);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
     }
 
-    @GetMapping(path = "/{id}", produces = MediaTypes.HAL_JSON_VALUE)
-    @Operation(operationId = "get-book", summary = "Obtener un libro")
+    @GetMapping(path = "/export")
+    @Operation(operationId = "export-books", summary = "Exportar el catálogo de libros",
+            description = "Se aplican los mismos filtros que al obtener la lista de libros. Los libros se leen y se escriben " +
+                    "de a uno, por lo que se puede exportar el catálogo completo sin importar su tamaño.")
+    @Parameters(value = {
+            @Parameter(name = "format", description = "Formato de la exportación: 'ndjson' (un libro JSON por línea) o 'csv'"),
+            @Parameter(name = "title", description = "Título del libro"),
+            @Parameter(name = "author", description = "Autor del libro"),
+            @Parameter(name = "startPrice", description = "Precio límite inferior"),
+            @Parameter(name = "endPrice", description = "Precio límite superior"),
+            @Parameter(name = "releaseDateFrom", description = "Fecha de publicación desde. Formato: dd-mm-yyyy", example = "01-01-0001", schema = @Schema(type = "date")),
+            @Parameter(name = "releaseDateTo", description = "Fecha de publicación hasta. Formato: dd-mm-yyyy", example = "31-12-9999", schema = @Schema(type = "date")),
+            @Parameter(name = "sortBy", description = "Mismo criterio de ordenación que al obtener la lista de libros.")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Se retorna el catálogo filtrado en el formato indicado."),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(schema = @Schema(type = "string")))
+    })
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestParam(required = false, defaultValue = "ndjson") String format,
+            @RequestParam(required = false, defaultValue = "") String title,
+            @RequestParam(required = false, defaultValue = "") String author,
+            @RequestParam(required = false, defaultValue = "0") String startPrice,
+            @RequestParam(required = false, defaultValue = "1000000") String endPrice,
+            @RequestParam(required = false, defaultValue = "#{T(java.time.LocalDate).of(0001,01,01)}")
+            @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate releaseDateFrom,
+            @RequestParam(required = false, defaultValue = "#{T(java.time.LocalDate).of(9999,12,31)}")
+            @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate releaseDateTo,
+            @RequestParam(required = false, defaultValue = "")
+            @BookOrders String sortBy
+    )
+    {
+        BookExportFormat exportFormat;
+        BookFilter filter;
+        try {
+            exportFormat = BookExportFormat.fromValue(format);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidExportException("Supported export formats are ndjson and csv.");
+        }
+        try {
+            filter = new BookFilter(title, author, new BigDecimal(startPrice), new BigDecimal(endPrice),
+                    releaseDateFrom, releaseDateTo);
+        } catch (NumberFormatException e) {
+            throw new InvalidExportException("Enter a valid numeric value to filter by book price.");
+        }
+
+        StreamingResponseBody body = outputStream -> bookExportWriter.write(exportFormat, outputStream,
+                writeBook -> bookService.exportBooks(filter, sortBy, writeBook));
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("books." + exportFormat.getExtension()).build().toString())
+                .body(body);
+    }
+
+    @GetMapping(path = "/{id}", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, SMILE_VALUE})
+    @Operation(operationId = "get-book", summary = "Obtener un libro", description = "Con 'Accept: " +
+            MediaType.APPLICATION_CBOR_VALUE + "' o '" + SMILE_VALUE + "' se retorna el libro en formato binario.")
     @Parameter(name = "id", description = "Identificador único del libro", required = true)
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Se retorna el libro con el identificador buscado.",
                     content = @Content(schema = @Schema(implementation = Book.class)) ),
             @ApiResponse(responseCode = "404", description = "Book not found", content = @Content(schema = @Schema(type = "string")))
     })
-    public EntityModel<Book> getBookById(@PathVariable long id) {
+    public ResponseEntity<EntityModel<Book>> getBookById(@PathVariable long id, WebRequest request) {
+        String representation = binaryRepresentation(request == null ? null : request.getHeader(HttpHeaders.ACCEPT));
+        // a conditional request validates the client's copy against the version alone before loading
+        // the book; any other takes its ETag from the book it loads anyway
+        if (request != null && (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null)) {
+            Optional<BookVersion> version = bookService.getBookVersion(id);
+            if (version.isPresent()
+                    && request.checkNotModified(version.get().eTag(representation), version.get().lastModifiedMillis())) {
+                return null;
+            }
+        }
         return bookService.getBookById(id)
-                .map(book -> bookModelAssembler.toModel(book))
+                .map(book -> withVersion(ResponseEntity.ok(), book, representation).varyBy(HttpHeaders.ACCEPT)
+                        .body(bookModelAssembler.toModel(book)))
                 .orElseThrow(() ->  new BookNotFoundException(id));
     }
 
@@ -136,16 +340,30 @@ public class BookController {
             @ApiResponse(responseCode = "200", description = "Se retorna el libro actualizado.",
                     content = @Content(schema = @Schema(implementation = Book.class)) ),
             @ApiResponse(responseCode = "400", description = "Bad request", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Book not found", content = @Content(schema = @Schema(type = "string")))
+            @ApiResponse(responseCode = "404", description = "Book not found", content = @Content(schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "409", description = "Book modified concurrently", content = @Content(schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the book", content = @Content(schema = @Schema(type = "string")))
     })
-    public EntityModel<Book> updateBook(@Valid @RequestBody Book book, @PathVariable long id) {
+    public ResponseEntity<EntityModel<Book>> updateBook(@Valid @RequestBody Book book, @PathVariable long id,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch, id);
         return bookService.getBookById(id)
                 .map(b -> {
+                    if (expectedVersion != null) {
+                        // the merge then fails if the stored book is no longer at that version
+                        b.setVersion(expectedVersion);
+                    }
                     b.setAuthor(book.getAuthor());
                     b.setPrice(book.getPrice());
                     b.setTitle(book.getTitle());
                     b.setReleaseDate(book.getReleaseDate());
-                    return bookModelAssembler.toModel(bookService.updateBook(b));
+                    Book updatedBook;
+                    try {
+                        updatedBook = bookService.updateBook(b);
+                    } catch (OptimisticLockingFailureException e) {
+                        throw expectedVersion == null ? e : new BookPreconditionFailedException(id);
+                    }
+                    return withVersion(ResponseEntity.ok(), updatedBook).body(bookModelAssembler.toModel(updatedBook));
                 })
                 .orElseThrow(() -> new BookNotFoundException(id));
     }
@@ -160,21 +378,62 @@ public class BookController {
             @ApiResponse(responseCode = "200", description = "Se retorna el libro actualizado.",
                     content = @Content(schema = @Schema(implementation = Book.class)) ),
             @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(schema = @Schema(type = "string"))),
-            @ApiResponse(responseCode = "404", description = "Book not found", content = @Content(schema = @Schema(type = "string")))
+            @ApiResponse(responseCode = "404", description = "Book not found", content = @Content(schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "409", description = "Book modified concurrently", content = @Content(schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the book", content = @Content(schema = @Schema(type = "string")))
+    })
+    public ResponseEntity<?> updateBookPrice(@RequestBody @NumberFormat String price, @PathVariable long id,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        BigDecimal newPrice;
+        try {
+            newPrice = new BigDecimal(price.trim());
+        }
+        catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("It is mandatory to denote a digit that represents the new price of the book");
+        }
+        Long expectedVersion = expectedVersion(ifMatch, id);
+        try {
+            return bookService.updateBookPrice(id, newPrice, expectedVersion)
+                    .map(updatedBook -> withVersion(ResponseEntity.ok(), updatedBook).body(bookModelAssembler.toModel(updatedBook)))
+                    .orElseThrow(() -> new BookNotFoundException(id));
+        } catch (OptimisticLockingFailureException e) {
+            throw expectedVersion == null ? e : new BookPreconditionFailedException(id);
+        }
+    }
+
+    @PatchMapping(path = "/prices", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(operationId = "reprice-books", summary = "Actualizar precios de forma masiva")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Arreglo JSON de pares {id, price} o un par por línea (NDJSON). El cuerpo se procesa a medida que se lee " +
+                    "y los precios se aplican en bloques, cada uno en su propia transacción.",
+            content = @Content(schema = @Schema(implementation = BookPriceChange.class)) )
+    @ApiResponse(responseCode = "200", description = "Se retorna la cantidad de libros actualizados, los ids que no existen " +
+            "y los registros inválidos.",
+            content = @Content(schema = @Schema(implementation = BookRepriceSummary.class)) )
+    public BookRepriceSummary repriceBooks(InputStream body) throws IOException {
+        try (MappingIterator<BookPriceChange> changes = objectMapper.readerFor(BookPriceChange.class).readValues(body)) {
+            return bookService.repriceBooks(changes);
+        }
+    }
 
+    @PatchMapping(path = "/prices", params = "percent", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(operationId = "reprice-books-by-author", summary = "Ajustar en un porcentaje el precio de los libros de un autor")
+    @Parameters({
+            @Parameter(name = "author", description = "Autor cuyos libros se actualizan (coincidencia exacta).", required = true),
+            @Parameter(name = "percent", description = "Porcentaje a aplicar sobre el precio actual, por ejemplo 5 o -10. " +
+                    "Debe ser mayor que -100.", required = true)
     })
-    public ResponseEntity<?> updateBookPrice(@RequestBody @NumberFormat String price, @PathVariable long id) {
-        return bookService.getBookById(id)
-                .map(b -> {
-                    try {
-                        b.setPrice(new BigDecimal(price.trim()));
-                    }
-                    catch (NumberFormatException e) {
-                        return ResponseEntity.badRequest().body("It is mandatory to denote a digit that represents the new price of the book");
-                    }
-                    return ResponseEntity.ok(bookModelAssembler.toModel(bookService.updateBook(b)));
-                })
-                .orElseThrow(() -> new BookNotFoundException(id));
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Se retorna la cantidad de libros actualizados.",
+                    content = @Content(schema = @Schema(implementation = BookRepriceSummary.class)) ),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(schema = @Schema(type = "string")))
+    })
+    public ResponseEntity<?> repriceBooksByAuthor(@RequestParam String author, @RequestParam BigDecimal percent) {
+        if (percent.compareTo(BigDecimal.valueOf(-100)) <= 0) {
+            return ResponseEntity.badRequest().body("The percentage must be greater than -100");
+        }
+        return ResponseEntity.ok(bookService.repriceBooksByAuthor(author, percent));
     }
 
     @DeleteMapping(path = "/{id}", produces = MediaTypes.HAL_JSON_VALUE)
@@ -184,12 +443,67 @@ public class BookController {
             @ApiResponse(responseCode = "200", description = "Se retorna el libro eliminado.",
                     content = @Content(schema = @Schema(implementation = Book.class)) ),
             @ApiResponse(responseCode = "404", description = "Book not found", content = @Content(schema = @Schema(type = "string"))),
-            @ApiResponse(responseCode = "409", description = "Book already exist", content = @Content(schema = @Schema(type = "string")))
+            @ApiResponse(responseCode = "409", description = "Book modified concurrently", content = @Content(schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the book", content = @Content(schema = @Schema(type = "string")))
     })
-    public ResponseEntity<?> deleteBook(@PathVariable long id) {
+    public ResponseEntity<?> deleteBook(@PathVariable long id,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch, id);
         return bookService.getBookById(id)
-                .map(b -> {bookService.deleteBookById(b.getId()); return ResponseEntity.ok(bookModelAssembler.toModel(b)); } )
+                .map(b -> {
+                    checkIfMatch(ifMatch, b);
+                    // deletes the version returned, so that a concurrent write is never deleted unseen
+                    long version = b.getVersion() == null ? 0 : b.getVersion();
+                    try {
+                        if (!bookService.deleteBookById(b.getId(), version)) {
+                            throw new BookNotFoundException(id);
+                        }
+                    } catch (OptimisticLockingFailureException e) {
+                        throw expectedVersion == null ? e : new BookPreconditionFailedException(id);
+                    }
+                    return ResponseEntity.ok(bookModelAssembler.toModel(b));
+                })
                 .orElseThrow(() -> new BookNotFoundException(id));
     }
 
+    static ResponseEntity.BodyBuilder withVersion(ResponseEntity.BodyBuilder response, Book book) {
+        return withVersion(response, book, "");
+    }
+
+    private static ResponseEntity.BodyBuilder withVersion(ResponseEntity.BodyBuilder response, Book book, String representation) {
+        BookVersion version = BookVersion.of(book);
+        response.eTag(version.eTag(representation)).cacheControl(CacheControl.noCache());
+        return version.lastModifiedMillis() < 0 ? response : response.lastModified(version.lastModifiedMillis());
+    }
+
+    static void checkIfMatch(String ifMatch, Book book) {
+        Long expectedVersion = expectedVersion(ifMatch, book.getId());
+        long version = book.getVersion() == null ? 0 : book.getVersion();
+        if (expectedVersion != null && expectedVersion != version) {
+            throw new BookPreconditionFailedException(book.getId());
+        }
+    }
+
+    /**
+     * The version an If-Match header requires the book to be at, or null when there is no header
+     * or it is "*". Only the version of a tag is compared, so the tag of any representation or
+     * encoding of the book matches; tags of other books never do.
+     */
+    static Long expectedVersion(String ifMatch, long id) {
+        if (ifMatch == null) {
+            return null;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String eTag = candidate.trim();
+            if (eTag.equals("*")) {
+                return null;
+            }
+            Optional<Long> version = BookVersion.versionOf(eTag, id);
+            if (version.isPresent()) {
+                return version.get();
+            }
+        }
+        throw new BookPreconditionFailedException(id);
+    }
+
 }
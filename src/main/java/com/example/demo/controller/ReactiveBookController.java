@@ -0,0 +1,164 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ReactiveBookModelAssembler;
+import com.example.demo.error.BookAlreadyExistException;
+import com.example.demo.error.BookNotFoundException;
+import com.example.demo.error.BookPreconditionFailedException;
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.model.Book;
+import com.example.demo.service.ReactiveBookService;
+import com.example.demo.validation.BookOrders;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static com.example.demo.controller.BookController.TOTAL_COUNT_HEADER;
+import static com.example.demo.controller.BookController.checkIfMatch;
+import static com.example.demo.controller.BookController.expectedVersion;
+
+/**
+ * WebFlux implementation of the {@code /api/books} contract served by {@link BookController},
+ * active when the application runs as a reactive web application ({@code reactive} profile).
+ * Listings requested as {@code application/x-ndjson} are streamed row by row with backpressure;
+ * every other representation is the same HAL document as the servlet stack.
+ */
+@RestController
+@RequestMapping("/api/books")
+@Validated
+@CrossOrigin(origins = "http://localhost:3000")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookController {
+
+    @Autowired
+    private ReactiveBookService bookService;
+    @Autowired
+    private ReactiveBookModelAssembler bookModelAssembler;
+
+    @PostMapping(produces = MediaTypes.HAL_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<ResponseEntity<EntityModel<Book>>> createBook(@Valid @RequestBody Book book) {
+        return bookService.saveBookIfAbsent(book)
+                .switchIfEmpty(Mono.error(() -> new BookAlreadyExistException(book)))
+                .flatMap(bookModelAssembler::toModel)
+                .map(bookEntityModel -> ResponseEntity
+                        .created(bookEntityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                        .body(bookEntityModel));
+    }
+
+    @GetMapping(produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<?>> getAllBooks(
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "10") int size,
+            @RequestParam(required = false, defaultValue = "") String title,
+            @RequestParam(required = false, defaultValue = "") String author,
+            @RequestParam(required = false, defaultValue = "0") String startPrice,
+            @RequestParam(required = false, defaultValue = "1000000") String endPrice,
+            @RequestParam(required = false, defaultValue = "#{T(java.time.LocalDate).of(0001,01,01)}")
+            @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate releaseDateFrom,
+            @RequestParam(required = false, defaultValue = "#{T(java.time.LocalDate).of(9999,12,31)}")
+            @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate releaseDateTo,
+            @RequestParam(required = false, defaultValue = "")
+            @BookOrders String sortBy,
+            ServerHttpRequest request
+    )
+    {
+        BookFilter filter;
+        try {
+            filter = new BookFilter(title, author, new BigDecimal(startPrice), new BigDecimal(endPrice),
+                    releaseDateFrom, releaseDateTo);
+        } catch (NumberFormatException e) {
+            return Mono.just(ResponseEntity.badRequest().body("Enter a valid numeric value to filter by book price."));
+        }
+        Flux<Book> books = bookService.getFilteredBooks(filter, page, size, sortBy);
+
+        if (request != null && request.getHeaders().getAccept().contains(MediaType.APPLICATION_NDJSON)) {
+            return Mono.just(ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(books));
+        }
+        return Mono.zip(bookModelAssembler.toCollectionModel(books), bookService.countFilteredBooks(filter))
+                .map(result -> ResponseEntity.ok()
+                        .contentType(MediaTypes.HAL_JSON)
+                        .header(TOTAL_COUNT_HEADER, String.valueOf(result.getT2()))
+                        .body(result.getT1()));
+    }
+
+    @GetMapping(path = "/{id}", produces = MediaTypes.HAL_JSON_VALUE)
+    public Mono<ResponseEntity<EntityModel<Book>>> getBookById(@PathVariable long id) {
+        return bookService.getBookById(id)
+                .switchIfEmpty(Mono.error(() -> new BookNotFoundException(id)))
+                .flatMap(this::withVersion);
+    }
+
+    @PutMapping(path = "/{id}", produces = MediaTypes.HAL_JSON_VALUE)
+    public Mono<ResponseEntity<EntityModel<Book>>> updateBook(@Valid @RequestBody Book book, @PathVariable long id,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch, id);
+        return bookService.getBookById(id)
+                .switchIfEmpty(Mono.error(() -> new BookNotFoundException(id)))
+                .flatMap(b -> {
+                    b.setAuthor(book.getAuthor());
+                    b.setPrice(book.getPrice());
+                    b.setTitle(book.getTitle());
+                    b.setReleaseDate(book.getReleaseDate());
+                    return bookService.updateBook(b, expectedVersion);
+                })
+                .switchIfEmpty(Mono.error(() -> new BookNotFoundException(id)))
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        e -> expectedVersion == null ? e : new BookPreconditionFailedException(id))
+                .flatMap(this::withVersion);
+    }
+
+    @PatchMapping(path = "/{id}", produces = MediaTypes.HAL_JSON_VALUE)
+    public Mono<ResponseEntity<?>> updateBookPrice(@RequestBody String price, @PathVariable long id,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        BigDecimal newPrice;
+        try {
+            newPrice = new BigDecimal(price.trim());
+        } catch (NumberFormatException e) {
+            return Mono.just(ResponseEntity.badRequest().body("It is mandatory to denote a digit that represents the new price of the book"));
+        }
+        Long expectedVersion = expectedVersion(ifMatch, id);
+        return bookService.updateBookPrice(id, newPrice, expectedVersion)
+                .switchIfEmpty(Mono.error(() -> new BookNotFoundException(id)))
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        e -> expectedVersion == null ? e : new BookPreconditionFailedException(id))
+                .flatMap(this::withVersion);
+    }
+
+    @DeleteMapping(path = "/{id}", produces = MediaTypes.HAL_JSON_VALUE)
+    public Mono<EntityModel<Book>> deleteBook(@PathVariable long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch, id);
+        return bookService.getBookById(id)
+                .switchIfEmpty(Mono.error(() -> new BookNotFoundException(id)))
+                .flatMap(b -> {
+                    checkIfMatch(ifMatch, b);
+                    return bookService.deleteBookById(id, b.getVersion() == null ? 0 : b.getVersion())
+                            .onErrorMap(OptimisticLockingFailureException.class,
+                                    e -> expectedVersion == null ? e : new BookPreconditionFailedException(id))
+                            .flatMap(deleted -> deleted
+                                    ? bookModelAssembler.toModel(b)
+                                    : Mono.error(new BookNotFoundException(id)));
+                });
+    }
+
+    private Mono<ResponseEntity<EntityModel<Book>>> withVersion(Book book) {
+        return bookModelAssembler.toModel(book).map(model -> BookController.withVersion(ResponseEntity.ok(), book).body(model));
+    }
+}
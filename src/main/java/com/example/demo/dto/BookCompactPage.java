@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import com.example.demo.persistence.dao.BookSummary;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Body of a listing requested as {@code application/vnd.books.compact+json}: the books as a flat
+ * array and the links of the whole page, where "book" is a URI template expanded with each id.
+ */
+public record BookCompactPage(Map<String, String> links, List<BookSummary> books) {
+}
@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import com.example.demo.persistence.model.Book;
+
+import java.util.List;
+
+public record BookCursorPage(List<Book> content, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.dto;
+
+import com.example.demo.persistence.model.Book;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Writes books one at a time to an output stream, so an export never holds more than the current
+ * row and the output buffer in memory.
+ */
+@Component
+public class BookExportWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,title,author,price,releaseDate,createdAt,lastModify";
+
+    private final ObjectWriter bookWriter;
+
+    @Autowired
+    public BookExportWriter(ObjectMapper objectMapper) {
+        this.bookWriter = objectMapper.writerFor(Book.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Hands a row writer for the given format to {@code export}, which is expected to feed it every
+     * book, and flushes the output afterwards.
+     */
+    public void write(BookExportFormat format, OutputStream outputStream, Consumer<Consumer<Book>> export) throws IOException {
+        switch (format) {
+            case NDJSON -> writeNdjson(outputStream, export);
+            case CSV -> writeCsv(outputStream, export);
+        }
+    }
+
+    /**
+     * Every row goes through the same generator, which encodes into Jackson's recycled buffers and
+     * writes them to the output as they fill, instead of serializing each book to its own array.
+     */
+    private void writeNdjson(OutputStream outputStream, Consumer<Consumer<Book>> export) throws IOException {
+        BufferedOutputStream out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+        try (JsonGenerator generator = bookWriter.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            try {
+                export.accept(book -> {
+                    try {
+                        bookWriter.writeValue(generator, book);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        out.flush();
+    }
+
+    private void writeCsv(OutputStream outputStream, Consumer<Consumer<Book>> export) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        out.write(CSV_HEADER);
+        out.write('\n');
+        try {
+            export.accept(book -> {
+                try {
+                    out.write(String.valueOf(book.getId()));
+                    for (Object value : new Object[] {book.getTitle(), book.getAuthor(), book.getPrice(),
+                            book.getReleaseDate(), book.getCreatedAt(), book.getLastModify()}) {
+                        out.write(',');
+                        out.write(csvField(value));
+                    }
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    static String csvField(Object value) {
+        String text = value instanceof BigDecimal price ? price.toPlainString() : Objects.toString(value, "");
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
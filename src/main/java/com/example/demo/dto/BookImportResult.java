@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BookImportResult(int index, Status status, Long id, String message) {
+
+    public enum Status { CREATED, DUPLICATE, INVALID }
+
+    public static BookImportResult created(int index, Long id) {
+        return new BookImportResult(index, Status.CREATED, id, null);
+    }
+
+    public static BookImportResult duplicate(int index) {
+        return new BookImportResult(index, Status.DUPLICATE, null, "Book already exist");
+    }
+
+    public static BookImportResult invalid(int index, String message) {
+        return new BookImportResult(index, Status.INVALID, null, message);
+    }
+}
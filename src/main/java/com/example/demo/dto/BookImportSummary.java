@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public record BookImportSummary(long created, long duplicate, long invalid, List<BookImportResult> results) {
+
+    public static BookImportSummary of(List<BookImportResult> results) {
+        return new BookImportSummary(
+                count(results, BookImportResult.Status.CREATED),
+                count(results, BookImportResult.Status.DUPLICATE),
+                count(results, BookImportResult.Status.INVALID),
+                results);
+    }
+
+    private static long count(List<BookImportResult> results, BookImportResult.Status status) {
+        return results.stream().filter(result -> result.status() == status).count();
+    }
+}
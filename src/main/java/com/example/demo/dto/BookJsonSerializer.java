@@ -0,0 +1,153 @@
+package com.example.demo.dto;
+
+import com.example.demo.persistence.model.Book;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+
+/**
+ * Writes a book field by field instead of going through the reflective bean serializer, and
+ * formats its dates straight into a per-thread char buffer rather than building a String and a
+ * formatter context for each one. The output is the same as the default serialization: settings
+ * the fast path does not reproduce (dates as timestamps, zone ids, an explicit context time zone)
+ * and years beyond four digits are handed to the default serializers. Inside an
+ * {@code EntityModel} the book is unwrapped, so an unwrapping variant writes only the fields.
+ */
+@JsonComponent
+public class BookJsonSerializer extends StdSerializer<Book> {
+
+    private static final ThreadLocal<char[]> BUFFERS = ThreadLocal.withInitial(() -> new char[48]);
+
+    private final boolean unwrapping;
+    private final SerializedString id, title, author, price, releaseDate, createdAt, lastModify;
+
+    public BookJsonSerializer() {
+        this(NameTransformer.NOP, false);
+    }
+
+    private BookJsonSerializer(NameTransformer names, boolean unwrapping) {
+        super(Book.class);
+        this.unwrapping = unwrapping;
+        id = new SerializedString(names.transform("id"));
+        title = new SerializedString(names.transform("title"));
+        author = new SerializedString(names.transform("author"));
+        price = new SerializedString(names.transform("price"));
+        releaseDate = new SerializedString(names.transform("releaseDate"));
+        createdAt = new SerializedString(names.transform("createdAt"));
+        lastModify = new SerializedString(names.transform("lastModify"));
+    }
+
+    @Override
+    public boolean isUnwrappingSerializer() {
+        return unwrapping;
+    }
+
+    @Override
+    public JsonSerializer<Book> unwrappingSerializer(NameTransformer names) {
+        return new BookJsonSerializer(names, true);
+    }
+
+    @Override
+    public void serialize(Book book, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (!unwrapping) {
+            gen.writeStartObject(book);
+        }
+        gen.writeFieldName(id);
+        if (book.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(book.getId().longValue());
+        }
+        gen.writeFieldName(title);
+        gen.writeString(book.getTitle());
+        gen.writeFieldName(author);
+        gen.writeString(book.getAuthor());
+        // BigDecimal caches its toString, so the generator's own path is already the cheapest
+        gen.writeFieldName(price);
+        gen.writeNumber(book.getPrice());
+        writeDate(releaseDate, book.getReleaseDate(), gen, provider);
+        writeDateTime(createdAt, book.getCreatedAt(), gen, provider);
+        writeDateTime(lastModify, book.getLastModify(), gen, provider);
+        if (!unwrapping) {
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeDate(SerializedString name, LocalDate date, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (date == null || !isFourDigitYear(date.getYear()) || provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            provider.defaultSerializeField(name.getValue(), date, gen);
+            return;
+        }
+        char[] buffer = BUFFERS.get();
+        int length = printDate(buffer, 0, date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+        gen.writeFieldName(name);
+        gen.writeString(buffer, 0, length);
+    }
+
+    /**
+     * ISO-8601 with the value's own offset, as {@code DateTimeFormatter.ISO_OFFSET_DATE_TIME} prints it.
+     */
+    private static void writeDateTime(SerializedString name, ZonedDateTime dateTime, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (dateTime == null || !isFourDigitYear(dateTime.getYear())
+                || provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                || provider.isEnabled(SerializationFeature.WRITE_DATES_WITH_ZONE_ID)
+                || provider.getConfig().hasExplicitTimeZone() && provider.isEnabled(SerializationFeature.WRITE_DATES_WITH_CONTEXT_TIME_ZONE)) {
+            provider.defaultSerializeField(name.getValue(), dateTime, gen);
+            return;
+        }
+        char[] buffer = BUFFERS.get();
+        int length = printDate(buffer, 0, dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth());
+        buffer[length++] = 'T';
+        length = printDigits(buffer, length, dateTime.getHour(), 2);
+        buffer[length++] = ':';
+        length = printDigits(buffer, length, dateTime.getMinute(), 2);
+        buffer[length++] = ':';
+        length = printDigits(buffer, length, dateTime.getSecond(), 2);
+        int nano = dateTime.getNano();
+        if (nano > 0) {
+            buffer[length++] = '.';
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            length = printDigits(buffer, length, nano, digits);
+        }
+        String offset = dateTime.getOffset().getId();
+        offset.getChars(0, offset.length(), buffer, length);
+        length += offset.length();
+
+        gen.writeFieldName(name);
+        gen.writeString(buffer, 0, length);
+    }
+
+    private static boolean isFourDigitYear(int year) {
+        return year >= 0 && year <= 9999;
+    }
+
+    private static int printDate(char[] buffer, int position, int year, int month, int day) {
+        position = printDigits(buffer, position, year, 4);
+        buffer[position++] = '-';
+        position = printDigits(buffer, position, month, 2);
+        buffer[position++] = '-';
+        return printDigits(buffer, position, day, 2);
+    }
+
+    // zero-padded to exactly "digits" characters
+    private static int printDigits(char[] buffer, int position, int value, int digits) {
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+}
@@ -1,33 +1,139 @@
 package com.example.demo.dto;
 
 import com.example.demo.controller.BookController;
+import com.example.demo.persistence.dao.BookSummary;
 import com.example.demo.persistence.model.Book;
 import com.example.demo.service.BookServiceImpl;
+import org.springframework.data.domain.Slice;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
+/**
+ * Builds the HAL links of books. Resolving a link through {@code linkTo(methodOn(...))} records a
+ * proxy invocation and walks the controller mapping, so both links are resolved once per request
+ * and every book then only appends its id to the resolved self link. That link lacks the affordance
+ * {@code linkTo} attaches for the book, which only HAL-FORMS would render; the HAL, CBOR and Smile
+ * documents are the same.
+ */
 @Component
 public class BookModelAssembler implements RepresentationModelAssembler<Book, EntityModel<Book>> {
+
+    private static final String LINKS_ATTRIBUTE = BookModelAssembler.class.getName() + ".LINKS";
+    private static final long TEMPLATE_ID = 0L;
+
     @Override
     public EntityModel<Book> toModel(Book book) {
-        return EntityModel.of(book,
-                linkTo( methodOn(BookController.class).getBookById(book.getId())).withSelfRel(),
-                linkTo( methodOn(BookController.class).getAllBooks(0, BookServiceImpl.getPaginationValue(),"","","","", LocalDate.MIN, LocalDate.MAX, "")).withRel("books"));
+        Links links = links();
+        return EntityModel.of(book, links.self(book.getId()), links.books().withRel("books"));
     }
 
     @Override
     public CollectionModel<EntityModel<Book>> toCollectionModel(Iterable<? extends Book> books) {
         CollectionModel<EntityModel<Book>> entityModelBooks = RepresentationModelAssembler.super.toCollectionModel(books);
-        entityModelBooks.add(linkTo(methodOn(BookController.class).getAllBooks(0, BookServiceImpl.getPaginationValue(),"","","","", LocalDate.MIN, LocalDate.MAX, "")).withSelfRel());
+        entityModelBooks.add(links().books().withSelfRel());
+        return entityModelBooks;
+    }
+
+    public CollectionModel<EntityModel<Book>> toSliceModel(Slice<Book> slice) {
+        CollectionModel<EntityModel<Book>> entityModelBooks = toCollectionModel(slice.getContent());
+        if (slice.hasNext()) {
+            entityModelBooks.add(Link.of(nextPage(slice), IanaLinkRelations.NEXT));
+        }
+        return entityModelBooks;
+    }
+
+    public CollectionModel<EntityModel<Book>> toCollectionModel(BookCursorPage cursorPage) {
+        CollectionModel<EntityModel<Book>> entityModelBooks = toCollectionModel(cursorPage.content());
+        if (cursorPage.hasNext()) {
+            entityModelBooks.add(Link.of(nextCursor(cursorPage), IanaLinkRelations.NEXT));
+        }
         return entityModelBooks;
     }
 
+    /**
+     * Compact listing: a single templated link replaces the two links built for every book.
+     */
+    public BookCompactPage toCompactPage(Slice<BookSummary> slice) {
+        return toCompactPage(slice.getContent(), slice.hasNext() ? nextPage(slice) : null);
+    }
+
+    public BookCompactPage toCompactPage(BookCursorPage cursorPage) {
+        return toCompactPage(cursorPage.content().stream().map(BookSummary::of).toList(),
+                cursorPage.hasNext() ? nextCursor(cursorPage) : null);
+    }
+
+    private static BookCompactPage toCompactPage(List<BookSummary> books, String next) {
+        Map<String, String> links = new LinkedHashMap<>();
+        links.put("book", ServletUriComponentsBuilder.fromCurrentContextPath().path("/api/books/{id}").build().toUriString());
+        if (next != null) {
+            links.put(IanaLinkRelations.NEXT.value(), next);
+        }
+        return new BookCompactPage(links, books);
+    }
+
+    private static Links links() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Links.resolve();
+        }
+        Links links = (Links) attributes.getAttribute(LINKS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (links == null) {
+            links = Links.resolve();
+            attributes.setAttribute(LINKS_ATTRIBUTE, links, RequestAttributes.SCOPE_REQUEST);
+        }
+        return links;
+    }
+
+    /**
+     * The links of the current request: the self link of a book split before its id (null if the
+     * mapping does not end with it), and the link to the listing.
+     */
+    private record Links(String selfPrefix, Link books) {
+
+        static Links resolve() {
+            String self = linkTo(methodOn(BookController.class).getBookById(TEMPLATE_ID, null)).withSelfRel().getHref();
+            String suffix = "/" + TEMPLATE_ID;
+            return new Links(self.endsWith(suffix) ? self.substring(0, self.length() - suffix.length() + 1) : null,
+                    linkTo(methodOn(BookController.class).getAllBooks(0, BookServiceImpl.getPaginationValue(), "", "", "", "",
+                            LocalDate.MIN, LocalDate.MAX, "", null, true, null, null)).withSelfRel());
+        }
+
+        Link self(Long id) {
+            return selfPrefix == null
+                    ? linkTo(methodOn(BookController.class).getBookById(id, null)).withSelfRel()
+                    : Link.of(selfPrefix + id);
+        }
+    }
+
+    private static String nextPage(Slice<?> slice) {
+        return ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("page", slice.getNumber() + 1)
+                .build()
+                .toUriString();
+    }
+
+    // keeps every filter of the current request and only moves the cursor forward
+    private static String nextCursor(BookCursorPage cursorPage) {
+        return ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", cursorPage.nextCursor())
+                .build()
+                .toUriString();
+    }
+
 
 }
@@ -0,0 +1,6 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+public record BookPriceChange(Long id, BigDecimal price) {
+}
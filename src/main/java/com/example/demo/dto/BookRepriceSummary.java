@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public record BookRepriceSummary(long updated, List<Long> missing, List<Invalid> invalid) {
+
+    public record Invalid(int index, String message) {
+    }
+}
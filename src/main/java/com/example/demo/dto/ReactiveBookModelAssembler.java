@@ -0,0 +1,45 @@
+package com.example.demo.dto;
+
+import com.example.demo.controller.ReactiveBookController;
+import com.example.demo.persistence.model.Book;
+import com.example.demo.service.BookServiceImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.methodOn;
+
+/**
+ * Reactive counterpart of {@link BookModelAssembler}: same links, resolved against the current
+ * exchange without blocking.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookModelAssembler {
+
+    public Mono<EntityModel<Book>> toModel(Book book) {
+        return Mono.zip(
+                linkTo(methodOn(ReactiveBookController.class).getBookById(book.getId())).withSelfRel().toMono(),
+                booksLink())
+                .map(links -> EntityModel.of(book, links.getT1(), links.getT2().withRel("books")));
+    }
+
+    public Mono<CollectionModel<EntityModel<Book>>> toCollectionModel(Flux<Book> books) {
+        return books.concatMap(this::toModel)
+                .collectList()
+                .zipWith(booksLink())
+                .map(models -> CollectionModel.of(models.getT1(), models.getT2().withSelfRel()));
+    }
+
+    private static Mono<Link> booksLink() {
+        return linkTo(methodOn(ReactiveBookController.class).getAllBooks(0, BookServiceImpl.getPaginationValue(),
+                "", "", "", "", LocalDate.MIN, LocalDate.MAX, "", null)).withSelfRel().toMono();
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.error;
+
+public class BookPreconditionFailedException extends RuntimeException {
+
+    public BookPreconditionFailedException(Long id) {
+        super("Book " + id + " has been modified since it was read");
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.demo.error;
 
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.time.format.DateTimeParseException;
 import java.util.HashMap;
@@ -24,6 +26,42 @@ public class ErrorAdvice {
         return ex.getMessage();
     }
 
+    @ExceptionHandler(BookPreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    String handleBookPreconditionFailedException(BookPreconditionFailedException ex) {
+        return ex.getMessage();
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    String handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return "The book was modified concurrently, read it again and retry";
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    String handleInvalidCursorException(InvalidCursorException ex) {
+        return ex.getMessage();
+    }
+
+    @ExceptionHandler(InvalidSortException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    String handleInvalidSortException(InvalidSortException ex) {
+        return ex.getMessage();
+    }
+
+    @ExceptionHandler(InvalidExportException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    String handleInvalidExportException(InvalidExportException ex) {
+        return ex.getMessage();
+    }
+
+    @ExceptionHandler(SearchIndexLoadingException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    String handleSearchIndexLoadingException(SearchIndexLoadingException ex) {
+        return ex.getMessage();
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     Map<String, String> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
@@ -34,6 +72,16 @@ public class ErrorAdvice {
         return errors;
     }
 
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    Map<String, String> handleWebExchangeBindException(WebExchangeBindException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getFieldErrors().forEach(error -> {
+            errors.put(error.getField(), error.getDefaultMessage());
+        });
+        return errors;
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     String handleConstrainViolationException(ConstraintViolationException ex) {
@@ -0,0 +1,8 @@
+package com.example.demo.error;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid pagination cursor " + cursor);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.error;
+
+public class InvalidExportException extends RuntimeException {
+
+    public InvalidExportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.error;
+
+public class InvalidSortException extends RuntimeException {
+
+    public InvalidSortException(String sortBy, int position, String reason) {
+        super("Invalid book sort '" + sortBy + "' at position " + position + ": " + reason);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.error;
+
+public class SearchIndexLoadingException extends RuntimeException {
+
+    public SearchIndexLoadingException() {
+        super("The search index is still loading, retry shortly");
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.persistence.dao;
+
+import com.example.demo.error.InvalidCursorException;
+import com.example.demo.persistence.model.Book;
+import org.springframework.data.domain.Sort;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Continuation token for keyset pagination: the sort key values of the last row of a page, in the
+ * same order as the {@link Sort} used to read it. The sort must end with the {@code id} so that
+ * every row has a unique position.
+ */
+public record BookCursor(List<Object> keys) {
+
+    public static BookCursor of(Book book, Sort sort) {
+        return new BookCursor(sort.stream().map(order -> keyOf(book, order.getProperty())).toList());
+    }
+
+    public String encode(Sort sort) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(signature(sort));
+            Iterator<Object> values = keys.iterator();
+            for (Sort.Order order : sort) {
+                writeKey(out, order.getProperty(), values.next());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    public static BookCursor decode(String token, Sort sort) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (!signature(sort).equals(in.readUTF())) {
+                throw new InvalidCursorException(token);
+            }
+            List<Object> keys = new ArrayList<>();
+            for (Sort.Order order : sort) {
+                keys.add(readKey(in, order.getProperty()));
+            }
+            if (in.available() > 0) {
+                throw new InvalidCursorException(token);
+            }
+            return new BookCursor(keys);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidCursorException(token);
+        }
+    }
+
+    private static String signature(Sort sort) {
+        StringBuilder signature = new StringBuilder();
+        for (Sort.Order order : sort) {
+            signature.append(order.getProperty()).append(':').append(order.getDirection()).append(',');
+        }
+        return signature.toString();
+    }
+
+    private static Object keyOf(Book book, String property) {
+        return switch (property) {
+            case "title" -> book.getTitle();
+            case "author" -> book.getAuthor();
+            case "price" -> book.getPrice();
+            case "releaseDate" -> book.getReleaseDate();
+            case "id" -> book.getId();
+            default -> throw new IllegalArgumentException("Unsupported sort property " + property);
+        };
+    }
+
+    private static void writeKey(DataOutputStream out, String property, Object value) throws IOException {
+        switch (property) {
+            case "title", "author" -> out.writeUTF((String) value);
+            case "price" -> out.writeUTF(((BigDecimal) value).toString());
+            case "releaseDate" -> out.writeLong(((LocalDate) value).toEpochDay());
+            case "id" -> out.writeLong((Long) value);
+            default -> throw new IllegalArgumentException("Unsupported sort property " + property);
+        }
+    }
+
+    private static Object readKey(DataInputStream in, String property) throws IOException {
+        return switch (property) {
+            case "title", "author" -> in.readUTF();
+            case "price" -> new BigDecimal(in.readUTF());
+            case "releaseDate" -> LocalDate.ofEpochDay(in.readLong());
+            case "id" -> in.readLong();
+            default -> throw new IllegalArgumentException("Unsupported sort property " + property);
+        };
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.persistence.dao;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record BookFilter(String title, String author, BigDecimal startPrice, BigDecimal endPrice,
+                         LocalDate releaseDateFrom, LocalDate releaseDateTo) {
+}
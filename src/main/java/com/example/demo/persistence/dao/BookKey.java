@@ -0,0 +1,15 @@
+package com.example.demo.persistence.dao;
+
+import com.example.demo.persistence.model.Book;
+
+import java.time.LocalDate;
+
+/**
+ * The natural key of a book, backed by the unique index on (title, author, release_date).
+ */
+public record BookKey(String title, String author, LocalDate releaseDate) {
+
+    public static BookKey of(Book book) {
+        return new BookKey(book.getTitle(), book.getAuthor(), book.getReleaseDate());
+    }
+}
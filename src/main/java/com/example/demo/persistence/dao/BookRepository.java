@@ -1,24 +1,84 @@
 package com.example.demo.persistence.dao;
 
 import com.example.demo.persistence.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+// declared queries get no transaction of their own; the reads are marked read-only so that the
+// replicas profile serves them from a replica
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+    @Transactional(readOnly = true)
     List<Book> findByTitle(String title);
+    @Transactional(readOnly = true)
     List<Book> findByAuthor(String author);
+    @Transactional(readOnly = true)
     Optional<Book> findByTitleAndAuthorAndReleaseDate(String title, String author, LocalDate releaseDate);
+    @Transactional(readOnly = true)
     Page<Book> findByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
             String title, String author, BigDecimal startPrice, BigDecimal endPrice,
             LocalDate releaseDateFrom, LocalDate releaseDateTo, Pageable pageable);
+    @Transactional(readOnly = true)
+    Slice<Book> readByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+            String title, String author, BigDecimal startPrice, BigDecimal endPrice,
+            LocalDate releaseDateFrom, LocalDate releaseDateTo, Pageable pageable);
+    @Transactional(readOnly = true)
+    long countByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+            String title, String author, BigDecimal startPrice, BigDecimal endPrice,
+            LocalDate releaseDateFrom, LocalDate releaseDateTo);
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Page<BookSummary> findSummariesByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+            String title, String author, BigDecimal startPrice, BigDecimal endPrice,
+            LocalDate releaseDateFrom, LocalDate releaseDateTo, Pageable pageable);
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Slice<BookSummary> readSummariesByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+            String title, String author, BigDecimal startPrice, BigDecimal endPrice,
+            LocalDate releaseDateFrom, LocalDate releaseDateTo, Pageable pageable);
 
+    @Transactional(readOnly = true)
     List<Book> findByReleaseDateBetween(LocalDate releaseDateFrom, LocalDate releaseDateTo);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.example.demo.persistence.dao.BookVersion(b.id, b.version, b.lastModify) from Book b where b.id = :id")
+    Optional<BookVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * Sets the price in one statement, and only if the book is still at {@code version}. Returns the
+     * number of rows updated: 0 when the book is gone or was modified since that version.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Book b set b.price = :price, b.lastModify = :lastModify, b.version = b.version + 1 " +
+            "where b.id = :id and b.version = :version")
+    int updatePrice(@Param("id") Long id, @Param("price") BigDecimal price,
+                    @Param("lastModify") ZonedDateTime lastModify, @Param("version") Long version);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Book b where b.id = :id and b.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.example.demo.persistence.dao.BookKey(b.title, b.author, b.releaseDate) from Book b where b.title in :titles")
+    List<BookKey> findKeysByTitleIn(@Param("titles") Collection<String> titles);
 }
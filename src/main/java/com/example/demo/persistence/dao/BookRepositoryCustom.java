@@ -0,0 +1,21 @@
+package com.example.demo.persistence.dao;
+
+import com.example.demo.persistence.model.Book;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public interface BookRepositoryCustom {
+    List<Book> findFilteredAfter(BookFilter filter, Sort sort, BookCursor after, int limit);
+    boolean insertIfAbsent(Book book);
+    void persistAll(List<Book> books);
+    void forEachFiltered(BookFilter filter, Sort sort, int fetchSize, Consumer<Book> action);
+    Set<Long> updatePrices(Map<Long, BigDecimal> prices, ZonedDateTime lastModify);
+    List<Long> findIdsByAuthorAfter(String author, long afterId, int limit);
+    Map<Long, BigDecimal> adjustPrices(List<Long> ids, String author, BigDecimal factor, ZonedDateTime lastModify);
+}
@@ -0,0 +1,226 @@
+package com.example.demo.persistence.dao;
+
+import com.example.demo.persistence.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class BookRepositoryImpl implements BookRepositoryCustom {
+
+    private static final String INSERT_BOOK = "INSERT INTO books (id, title, author, price, release_date, created_at, last_modify) " +
+            "VALUES (NEXT VALUE FOR books_seq, ?, ?, ?, ?, ?, ?)";
+    // ix_books_author keeps the rows of an author in primary key order, so no sort is needed
+    private static final String FIND_IDS_BY_AUTHOR_AFTER = "SELECT id FROM books WHERE author = ? AND id > ? ORDER BY id LIMIT ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Keyset (seek) pagination: instead of skipping rows with an offset, the query starts right
+     * after the row described by {@code after}. In id order the primary key seeks to the cursor and
+     * returns the rows already sorted, so every page costs the same regardless of depth. There is no
+     * (sort key, id) index for the other sort keys: the price and release date ranges, always part
+     * of the filter, lead the plan instead, so those pages still read and sort every matching row
+     * and only avoid the skipped ones.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> findFilteredAfter(BookFilter filter, Sort sort, BookCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+
+        List<Predicate> predicates = filterPredicates(cb, book, filter);
+        if (after != null) {
+            predicates.add(seekPredicate(cb, book, sort, after));
+        }
+        query.where(predicates.toArray(Predicate[]::new))
+                .orderBy(QueryUtils.toOrders(sort, book, cb));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Reads every book matching the filter through a forward-only cursor of {@code fetchSize}
+     * rows and detaches each one once {@code action} is done with it, so memory use does not grow
+     * with the number of rows.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachFiltered(BookFilter filter, Sort sort, int fetchSize, Consumer<Book> action) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+        query.where(filterPredicates(cb, book, filter).toArray(Predicate[]::new))
+                .orderBy(QueryUtils.toOrders(sort, book, cb));
+
+        try (Stream<Book> books = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            books.forEach(result -> {
+                action.accept(result);
+                entityManager.detach(result);
+            });
+        }
+    }
+
+    /**
+     * Inserts the book unless one with the same title, author and release date exists, in a single
+     * statement guarded by the unique index on those columns. Returns whether the row was created;
+     * when it was, the generated id is set on the book. The id is a whole value of the pooled
+     * sequence, which Hibernate never hands out from its own allocated blocks.
+     */
+    @Override
+    public boolean insertIfAbsent(Book book) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(INSERT_BOOK, new String[] {"ID"});
+                statement.setString(1, book.getTitle());
+                statement.setString(2, book.getAuthor());
+                statement.setBigDecimal(3, book.getPrice());
+                statement.setObject(4, book.getReleaseDate());
+                statement.setObject(5, book.getCreatedAt() == null ? null : book.getCreatedAt().toOffsetDateTime());
+                statement.setObject(6, book.getLastModify() == null ? null : book.getLastModify().toOffsetDateTime());
+                return statement;
+            }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        book.setId(keyHolder.getKey().longValue());
+        book.setVersion(0L);
+        return true;
+    }
+
+    /**
+     * Persists the books in one transaction. Inserts are sent in JDBC batches of
+     * {@code hibernate.jdbc.batch_size}, and the persistence context is cleared afterwards so that
+     * large imports do not accumulate managed entities.
+     */
+    @Override
+    @Transactional
+    public void persistAll(List<Book> books) {
+        books.forEach(entityManager::persist);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Sets the price of every book in {@code prices} with a single UPDATE, in one transaction, and
+     * bumps their versions. Returns the ids that do not exist, which are only looked up when fewer
+     * rows than requested were updated.
+     */
+    @Override
+    @Transactional
+    public Set<Long> updatePrices(Map<Long, BigDecimal> prices, ZonedDateTime lastModify) {
+        String ids = placeholders(prices.size());
+        StringBuilder sql = new StringBuilder("UPDATE books SET price = CASE id");
+        List<Object> args = new ArrayList<>(prices.size() * 3 + 1);
+        prices.forEach((id, price) -> {
+            sql.append(" WHEN ? THEN CAST(? AS NUMERIC(38, 2))");
+            args.add(id);
+            args.add(price);
+        });
+        sql.append(" END, last_modify = ?, version = version + 1 WHERE id IN (").append(ids).append(')');
+        args.add(lastModify.toOffsetDateTime());
+        args.addAll(prices.keySet());
+
+        if (jdbcTemplate.update(sql.toString(), args.toArray()) == prices.size()) {
+            return Set.of();
+        }
+        Set<Long> missing = new LinkedHashSet<>(prices.keySet());
+        jdbcTemplate.queryForList("SELECT id FROM books WHERE id IN (" + ids + ")", Long.class, prices.keySet().toArray())
+                .forEach(missing::remove);
+        return missing;
+    }
+
+    @Override
+    public List<Long> findIdsByAuthorAfter(String author, long afterId, int limit) {
+        return jdbcTemplate.queryForList(FIND_IDS_BY_AUTHOR_AFTER, Long.class, author, afterId, limit);
+    }
+
+    /**
+     * Multiplies by {@code factor} the price of the given books that still belong to the author,
+     * rounded to cents, in one transaction. Returns the new price of every updated book.
+     */
+    @Override
+    @Transactional
+    public Map<Long, BigDecimal> adjustPrices(List<Long> ids, String author, BigDecimal factor, ZonedDateTime lastModify) {
+        String in = placeholders(ids.size());
+        List<Object> args = new ArrayList<>(ids.size() + 3);
+        args.add(factor);
+        args.add(lastModify.toOffsetDateTime());
+        args.add(author);
+        args.addAll(ids);
+        jdbcTemplate.update("UPDATE books SET price = ROUND(price * ?, 2), last_modify = ?, version = version + 1 " +
+                "WHERE author = ? AND id IN (" + in + ")", args.toArray());
+
+        Map<Long, BigDecimal> prices = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, price FROM books WHERE author = ? AND id IN (" + in + ") ORDER BY id",
+                rs -> { prices.put(rs.getLong(1), rs.getBigDecimal(2)); }, args.subList(2, args.size()).toArray());
+        return prices;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    static List<Predicate> filterPredicates(CriteriaBuilder cb, Root<Book> book, BookFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(containingIgnoreCase(cb, book.get("title"), filter.title()));
+        predicates.add(containingIgnoreCase(cb, book.get("author"), filter.author()));
+        predicates.add(cb.between(book.<BigDecimal>get("price"), filter.startPrice(), filter.endPrice()));
+        predicates.add(cb.between(book.<LocalDate>get("releaseDate"), filter.releaseDateFrom(), filter.releaseDateTo()));
+        return predicates;
+    }
+
+    private static Predicate containingIgnoreCase(CriteriaBuilder cb, Path<String> path, String value) {
+        String escaped = value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return cb.like(cb.upper(path), "%" + escaped.toUpperCase() + "%", '\\');
+    }
+
+    /**
+     * (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ... with the comparison flipped for descending keys.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate seekPredicate(CriteriaBuilder cb, Root<Book> book, Sort sort, BookCursor after) {
+        List<Predicate> alternatives = new ArrayList<>();
+        List<Predicate> equalities = new ArrayList<>();
+        Iterator<Object> values = after.keys().iterator();
+
+        for (Sort.Order order : sort) {
+            Path key = book.get(order.getProperty());
+            Comparable value = (Comparable) values.next();
+
+            List<Predicate> alternative = new ArrayList<>(equalities);
+            alternative.add(order.isAscending() ? cb.greaterThan(key, value) : cb.lessThan(key, value));
+            alternatives.add(cb.and(alternative.toArray(Predicate[]::new)));
+
+            equalities.add(cb.equal(key, value));
+        }
+        return cb.or(alternatives.toArray(Predicate[]::new));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.persistence.dao;
+
+import com.example.demo.persistence.model.Book;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The columns a listing shows, read straight into a record so that no entity is hydrated or
+ * tracked by the persistence context.
+ */
+public record BookSummary(Long id, String title, String author, BigDecimal price, LocalDate releaseDate) {
+
+    public static BookSummary of(Book book) {
+        return new BookSummary(book.getId(), book.getTitle(), book.getAuthor(), book.getPrice(), book.getReleaseDate());
+    }
+}
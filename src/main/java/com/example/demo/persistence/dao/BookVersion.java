@@ -0,0 +1,50 @@
+package com.example.demo.persistence.dao;
+
+import com.example.demo.persistence.model.Book;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+/**
+ * Identity, optimistic-locking version and last modification time of a book, which is all an HTTP
+ * validator needs. The entity tag is {@code "<id>-<version>"}, followed by a suffix for each
+ * representation other than HAL, so an {@code If-Match} header can be turned back into the version
+ * a conditional update must find whichever representation the client read.
+ */
+public record BookVersion(Long id, Long version, ZonedDateTime lastModify) {
+
+    public static BookVersion of(Book book) {
+        return new BookVersion(book.getId(), book.getVersion(), book.getLastModify());
+    }
+
+    public String eTag() {
+        return eTag("");
+    }
+
+    public String eTag(String representation) {
+        return "\"" + id + "-" + (version == null ? 0 : version) + representation + "\"";
+    }
+
+    public long lastModifiedMillis() {
+        return lastModify == null ? -1 : lastModify.toInstant().toEpochMilli();
+    }
+
+    /**
+     * The version named by an entity tag of the book {@code id}, if the tag is one. Weak tags, which
+     * compressed responses carry, and representation suffixes name the same version.
+     */
+    public static Optional<Long> versionOf(String eTag, Long id) {
+        String prefix = "\"" + id + "-";
+        String tag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            return Optional.empty();
+        }
+        String value = tag.substring(prefix.length(), tag.length() - 1);
+        int suffix = value.indexOf('-');
+        try {
+            return Optional.of(Long.parseLong(suffix < 0 ? value : value.substring(0, suffix)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
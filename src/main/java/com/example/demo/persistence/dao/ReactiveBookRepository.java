@@ -0,0 +1,166 @@
+package com.example.demo.persistence.dao;
+
+import com.example.demo.persistence.model.Book;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.StringJoiner;
+
+/**
+ * Non-blocking counterpart of {@link BookRepository} for the reactive stack, written with plain
+ * SQL over R2DBC against the same {@code books} table. Rows are emitted as the driver reads them,
+ * so a subscriber's demand is what pulls rows from the database.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookRepository {
+
+    private static final String COLUMNS = "id, title, author, price, release_date, created_at, last_modify";
+    private static final String SELECT = "SELECT " + COLUMNS + ", version FROM books";
+    private static final String FILTER = " WHERE UPPER(title) LIKE :title ESCAPE '\\' AND UPPER(author) LIKE :author ESCAPE '\\'" +
+            " AND price BETWEEN :startPrice AND :endPrice AND release_date BETWEEN :releaseDateFrom AND :releaseDateTo";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Mono<Book> findById(long id) {
+        return databaseClient.sql(SELECT + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveBookRepository::toBook)
+                .one();
+    }
+
+    public Flux<Book> findFiltered(BookFilter filter, Pageable pageable) {
+        return bindFilter(databaseClient.sql(SELECT + FILTER + orderBy(pageable.getSort())
+                        + " LIMIT :limit OFFSET :offset"), filter)
+                .bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset())
+                .map(ReactiveBookRepository::toBook)
+                .all();
+    }
+
+    public Mono<Long> countFiltered(BookFilter filter) {
+        return bindFilter(databaseClient.sql("SELECT COUNT(*) FROM books" + FILTER), filter)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    /**
+     * Same single guarded insert as {@link BookRepositoryCustom#insertIfAbsent(Book)}: emits the
+     * book with its generated id, or completes empty when the unique index rejects it.
+     */
+    public Mono<Book> insertIfAbsent(Book book) {
+        return databaseClient.sql("INSERT INTO books (" + COLUMNS + ") " +
+                        "VALUES (NEXT VALUE FOR books_seq, :title, :author, :price, :releaseDate, :createdAt, :lastModify)")
+                .filter(statement -> statement.returnGeneratedValues("ID"))
+                .bind("title", book.getTitle())
+                .bind("author", book.getAuthor())
+                .bind("price", book.getPrice())
+                .bind("releaseDate", book.getReleaseDate())
+                .bind("createdAt", book.getCreatedAt().toOffsetDateTime())
+                .bind("lastModify", book.getLastModify().toOffsetDateTime())
+                .map(row -> row.get("ID", Long.class))
+                .one()
+                .map(id -> {
+                    book.setId(id);
+                    book.setVersion(0L);
+                    return book;
+                })
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.empty());
+    }
+
+    /**
+     * Same conditional update as the servlet stack: the row is only written, and its version bumped,
+     * while it is still at {@code expectedVersion}. Emits the number of rows updated.
+     */
+    public Mono<Long> update(Book book, long expectedVersion) {
+        return databaseClient.sql("UPDATE books SET title = :title, author = :author, price = :price, " +
+                        "release_date = :releaseDate, last_modify = :lastModify, version = version + 1 " +
+                        "WHERE id = :id AND version = :version")
+                .bind("title", book.getTitle())
+                .bind("author", book.getAuthor())
+                .bind("price", book.getPrice())
+                .bind("releaseDate", book.getReleaseDate())
+                .bind("lastModify", book.getLastModify().toOffsetDateTime())
+                .bind("id", book.getId())
+                .bind("version", expectedVersion)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteById(long id) {
+        return databaseClient.sql("DELETE FROM books WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> delete(long id, long expectedVersion) {
+        return databaseClient.sql("DELETE FROM books WHERE id = :id AND version = :version")
+                .bind("id", id)
+                .bind("version", expectedVersion)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindFilter(DatabaseClient.GenericExecuteSpec spec, BookFilter filter) {
+        return spec.bind("title", containing(filter.title()))
+                .bind("author", containing(filter.author()))
+                .bind("startPrice", filter.startPrice())
+                .bind("endPrice", filter.endPrice())
+                .bind("releaseDateFrom", filter.releaseDateFrom())
+                .bind("releaseDateTo", filter.releaseDateTo());
+    }
+
+    private static String containing(String value) {
+        return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_").toUpperCase() + "%";
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+        for (Sort.Order order : sort) {
+            orderBy.add(column(order.getProperty()) + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        return orderBy.toString();
+    }
+
+    private static String column(String property) {
+        return switch (property) {
+            case "title" -> "title";
+            case "author" -> "author";
+            case "price" -> "price";
+            case "releaseDate" -> "release_date";
+            case "id" -> "id";
+            default -> throw new IllegalArgumentException("Unsupported sort property " + property);
+        };
+    }
+
+    private static Book toBook(Readable row) {
+        OffsetDateTime createdAt = row.get("created_at", OffsetDateTime.class);
+        OffsetDateTime lastModify = row.get("last_modify", OffsetDateTime.class);
+        return Book.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .author(row.get("author", String.class))
+                .price(row.get("price", BigDecimal.class))
+                .releaseDate(row.get("release_date", LocalDate.class))
+                .createdAt(createdAt == null ? null : createdAt.toZonedDateTime())
+                .lastModify(lastModify == null ? null : lastModify.toZonedDateTime())
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.demo.persistence.model;
 
-import com.example.demo.validation.MyDateTimeFormat;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
@@ -23,14 +23,22 @@ import java.util.Date;
 import java.util.Objects;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "books")
+@Table(name = "books",
+        uniqueConstraints = @UniqueConstraint(name = "ux_books_title_author_release_date",
+                columnNames = {"title", "author", "releaseDate"}),
+        indexes = {
+                @Index(name = "ix_books_author", columnList = "author"),
+                @Index(name = "ix_books_price", columnList = "price"),
+                @Index(name = "ix_books_release_date", columnList = "releaseDate")
+        })
 public class Book {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
     @NotNull
     @NotBlank(message = "Title is mandatory")
@@ -52,6 +60,10 @@ public class Book {
     @Temporal(TemporalType.TIMESTAMP)
     private ZonedDateTime lastModify;
 
+    @Version
+    @JsonIgnore
+    private Long version;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,237 @@
+package com.example.demo.search;
+
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over the title and author of every book. Terms are lower-cased and
+ * stripped of accents, every query term also matches as a prefix, and hits are ranked by a
+ * TF-IDF score where title terms weigh more than author terms. The index is rebuilt from the table
+ * off to the side and swapped in whole, see {@link #rebuild}.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final float TITLE_WEIGHT = 2f;
+    private static final float AUTHOR_WEIGHT = 1f;
+    private static final float PREFIX_MATCH_WEIGHT = 0.5f;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+    private Contents contents = new Contents();
+    // the writes made while a rebuild reads the table, replayed on the new contents before the swap
+    private List<Consumer<Contents>> journal;
+    private volatile boolean loaded;
+
+    public void index(Book book) {
+        if (book.getId() == null) {
+            return;
+        }
+        Map<String, Float> terms = terms(book);
+        write(contents -> contents.put(book.getId(), terms, book.getPrice(), book.getReleaseDate()));
+    }
+
+    public void remove(Long id) {
+        write(contents -> contents.remove(id));
+    }
+
+    public void updatePrice(Long id, BigDecimal price) {
+        write(contents -> contents.updatePrice(id, price));
+    }
+
+    public void clear() {
+        write(Contents::clear);
+    }
+
+    /**
+     * Replaces the contents with the books {@code rows} hands to its consumer. Searches keep using
+     * the current contents while the rows are read. The writes made in the meantime apply to both:
+     * they are replayed on the new contents before the swap, so a row read before a write cannot
+     * undo it. Rebuilds run one at a time.
+     */
+    public void rebuild(Consumer<Consumer<Book>> rows) {
+        synchronized (rebuildLock) {
+            lock.writeLock().lock();
+            try {
+                journal = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Contents rebuilt = new Contents();
+            boolean read = false;
+            try {
+                rows.accept(book -> {
+                    if (book.getId() != null) {
+                        rebuilt.put(book.getId(), terms(book), book.getPrice(), book.getReleaseDate());
+                    }
+                });
+                read = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (read) {
+                        journal.forEach(change -> change.accept(rebuilt));
+                        contents = rebuilt;
+                        loaded = true;
+                    }
+                    journal = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the contents have been read from the table at least once.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the ids of the books matching every term of the query, best match first. Only the
+     * price and release date ranges of the filter are applied.
+     */
+    public List<Long> search(String query, BookFilter filter) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return contents.search(tokens, filter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return contents.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Consumer<Contents> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(contents);
+            if (journal != null) {
+                journal.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Map<String, Float> terms(Book book) {
+        Map<String, Float> terms = new HashMap<>();
+        tokenize(book.getTitle()).forEach(term -> terms.merge(term, TITLE_WEIGHT, Float::sum));
+        tokenize(book.getAuthor()).forEach(term -> terms.merge(term, AUTHOR_WEIGHT, Float::sum));
+        return terms;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    // the postings and documents, guarded by the index's lock once they are searched
+    private static final class Contents {
+
+        private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+        private final Map<Long, Document> documents = new HashMap<>();
+
+        void put(Long id, Map<String, Float> terms, BigDecimal price, LocalDate releaseDate) {
+            remove(id);
+            terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, weight));
+            documents.put(id, new Document(Set.copyOf(terms.keySet()), price, releaseDate));
+        }
+
+        void updatePrice(Long id, BigDecimal price) {
+            documents.computeIfPresent(id, (key, document) -> new Document(document.terms(), price, document.releaseDate()));
+        }
+
+        void clear() {
+            postings.clear();
+            documents.clear();
+        }
+
+        List<Long> search(List<String> tokens, BookFilter filter) {
+            Map<Long, Float> scores = null;
+            for (String token : tokens) {
+                Map<Long, Float> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            Map<Long, Float> ranking = scores;
+            return ranking.keySet().stream()
+                    .filter(id -> documents.get(id).matches(filter))
+                    .sorted(Comparator.comparing((Long id) -> ranking.get(id)).reversed().thenComparing(Comparator.naturalOrder()))
+                    .toList();
+        }
+
+        private Map<Long, Float> scoreToken(String token) {
+            Map<Long, Float> tokenScores = new HashMap<>();
+            int documentCount = documents.size();
+            for (Map.Entry<String, Map<Long, Float>> term : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                float idf = (float) Math.log(1 + (double) documentCount / term.getValue().size());
+                float boost = term.getKey().equals(token) ? 1f : PREFIX_MATCH_WEIGHT;
+                term.getValue().forEach((id, weight) -> tokenScores.merge(id, weight * idf * boost, Math::max));
+            }
+            return tokenScores;
+        }
+
+        void remove(Long id) {
+            Document document = documents.remove(id);
+            if (document == null) {
+                return;
+            }
+            for (String term : document.terms()) {
+                Map<Long, Float> ids = postings.get(term);
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private record Document(Set<String> terms, BigDecimal price, LocalDate releaseDate) {
+        boolean matches(BookFilter filter) {
+            return (price == null || price.compareTo(filter.startPrice()) >= 0 && price.compareTo(filter.endPrice()) <= 0)
+                    && (releaseDate == null || !releaseDate.isBefore(filter.releaseDateFrom()) && !releaseDate.isAfter(filter.releaseDateTo()));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.search;
+
+import com.example.demo.persistence.model.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Fills the search index from the books table once the application is ready, on the application
+ * task executor so that startup does not wait for it. Searches are refused until that first load
+ * is done. Rows are read as a plain projection so the catalog is never hydrated as managed entities.
+ */
+@Component
+public class BookSearchIndexLoader {
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private TaskExecutor taskExecutor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        taskExecutor.execute(this::load);
+    }
+
+    /**
+     * Rebuilds the index on the calling thread.
+     */
+    public void load() {
+        bookSearchIndex.rebuild(index -> jdbcTemplate.query("SELECT id, title, author, price, release_date FROM books", rs -> {
+            index.accept(Book.builder()
+                    .id(rs.getLong("id"))
+                    .title(rs.getString("title"))
+                    .author(rs.getString("author"))
+                    .price(rs.getBigDecimal("price"))
+                    .releaseDate(rs.getObject("release_date", LocalDate.class))
+                    .build());
+        }));
+    }
+}
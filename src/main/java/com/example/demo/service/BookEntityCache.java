@@ -0,0 +1,62 @@
+package com.example.demo.service;
+
+import com.example.demo.persistence.model.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of books by id (Caffeine, W-TinyLFU eviction). It only holds and hands out copies,
+ * so callers are free to modify the returned books before saving them. Hit, miss and eviction
+ * counts are published as the {@code cache.*} meters with the {@code cache=books} tag.
+ */
+@Component
+public class BookEntityCache {
+
+    private final Cache<Long, Book> cache;
+
+    public BookEntityCache(@Value("${books.cache.maximum-size:10000}") long maximumSize,
+                           @Value("${books.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                           MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "books");
+    }
+
+    public Optional<Book> get(Long id, Function<Long, Optional<Book>> loader) {
+        Book book = cache.get(id, key -> loader.apply(key).map(this::copyOf).orElse(null));
+        return Optional.ofNullable(book).map(this::copyOf);
+    }
+
+    public Optional<Book> getIfPresent(Long id) {
+        return Optional.ofNullable(cache.getIfPresent(id)).map(this::copyOf);
+    }
+
+    public void put(Book book) {
+        if (book.getId() != null) {
+            cache.put(book.getId(), copyOf(book));
+        }
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private Book copyOf(Book book) {
+        return book.toBuilder().build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.model.Book;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of filtered listings keyed by a canonical form of the filter and page request. Every key
+ * carries the write generation it was read at, so a write invalidates all listings by bumping the
+ * generation; stale entries are never looked up again and age out of the cache. Concurrent misses
+ * on the same key wait for the single query already in flight.
+ */
+@Component
+public class BookQueryCache {
+
+    private final AsyncCache<Key, Slice<?>> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public BookQueryCache(@Value("${books.query-cache.maximum-size:1000}") long maximumSize,
+                          @Value("${books.query-cache.expire-after-write:1m}") Duration expireAfterWrite,
+                          MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "book-listings");
+    }
+
+    public Page<Book> getPage(BookFilter filter, Pageable pageable, Supplier<Page<Book>> loader) {
+        return getPage(Book.class, filter, pageable, loader);
+    }
+
+    public Slice<Book> getSlice(BookFilter filter, Pageable pageable, Supplier<Slice<Book>> loader) {
+        return getSlice(Book.class, filter, pageable, loader);
+    }
+
+    /**
+     * Same as {@link #getPage(BookFilter, Pageable, Supplier)} for listings read as {@code type},
+     * which are cached apart from the entity listings of the same filter.
+     */
+    public <T> Page<T> getPage(Class<T> type, BookFilter filter, Pageable pageable, Supplier<Page<T>> loader) {
+        return (Page<T>) get(new Key(generation.get(), true, type, normalize(filter), pageable), loader);
+    }
+
+    public <T> Slice<T> getSlice(Class<T> type, BookFilter filter, Pageable pageable, Supplier<Slice<T>> loader) {
+        return get(new Key(generation.get(), false, type, normalize(filter), pageable), loader);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Slice<T> get(Key key, Supplier<? extends Slice<T>> loader) {
+        CompletableFuture<Slice<?>> inFlight = new CompletableFuture<>();
+        CompletableFuture<Slice<?>> existing = cache.asMap().putIfAbsent(key, inFlight);
+        if (existing != null) {
+            try {
+                return (Slice<T>) existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            Slice<T> result = loader.get();
+            inFlight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            cache.asMap().remove(key, inFlight);
+            inFlight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static BookFilter normalize(BookFilter filter) {
+        return new BookFilter(filter.title().toLowerCase(Locale.ROOT), filter.author().toLowerCase(Locale.ROOT),
+                normalize(filter.startPrice()), normalize(filter.endPrice()),
+                filter.releaseDateFrom(), filter.releaseDateTo());
+    }
+
+    private static BigDecimal normalize(BigDecimal value) {
+        return value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+    }
+
+    private record Key(long generation, boolean counted, Class<?> type, BookFilter filter, Pageable pageable) {
+    }
+}
@@ -1,22 +1,48 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.BookCursorPage;
+import com.example.demo.dto.BookImportSummary;
+import com.example.demo.dto.BookPriceChange;
+import com.example.demo.dto.BookRepriceSummary;
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.dao.BookSummary;
+import com.example.demo.persistence.dao.BookVersion;
 import com.example.demo.persistence.model.Book;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.OptionalLong;
 
 public interface BookService {
     Book saveBook(Book book);
+    Optional<Book> saveBookIfAbsent(Book book);
+    BookImportSummary importBooks(Iterator<Book> books);
     List<Book> getBooks();
     Page<Book> getPaginatedBooks(int page);
     Page<Book> getFilteredAndPaginatedBooks(int page, int size, String title, String author, BigDecimal startPrice, BigDecimal endPrice,
                                             LocalDate releaseDateFrom, LocalDate releaseDateTo, String sortBy);
+    Slice<Book> getFilteredBooksSlice(int page, int size, BookFilter filter, String sortBy);
+    Page<BookSummary> getFilteredBookSummaries(int page, int size, BookFilter filter, String sortBy);
+    Slice<BookSummary> getFilteredBookSummariesSlice(int page, int size, BookFilter filter, String sortBy);
+    OptionalLong getEstimatedTotal(BookFilter filter);
+    Page<Book> searchBooks(String query, BookFilter filter, int page, int size);
+    void exportBooks(BookFilter filter, String sortBy, Consumer<Book> action);
+    BookCursorPage getFilteredBooksAfterCursor(BookFilter filter, int size, String sortBy, String cursor);
     Optional<Book> getBookById(Long id);
+    Optional<BookVersion> getBookVersion(Long id);
+    String getCatalogVersion();
     Book updateBook(Book book);
+    Optional<Book> updateBookPrice(Long id, BigDecimal price, Long expectedVersion);
+    BookRepriceSummary repriceBooks(Iterator<BookPriceChange> changes);
+    BookRepriceSummary repriceBooksByAuthor(String author, BigDecimal percent);
     void deleteBookById(Long id);
+    boolean deleteBookById(Long id, Long expectedVersion);
     boolean isExist(Book book);
     List<Book> findByTitle(String title);
     List<Book> findByAuthor(String author);
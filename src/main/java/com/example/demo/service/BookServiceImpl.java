@@ -1,46 +1,119 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.BookCursorPage;
+import com.example.demo.dto.BookImportResult;
+import com.example.demo.dto.BookImportSummary;
+import com.example.demo.dto.BookPriceChange;
+import com.example.demo.dto.BookRepriceSummary;
+import com.example.demo.error.SearchIndexLoadingException;
+import com.example.demo.persistence.dao.BookCursor;
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.dao.BookKey;
 import com.example.demo.persistence.dao.BookRepository;
+import com.example.demo.persistence.dao.BookSummary;
+import com.example.demo.persistence.dao.BookVersion;
 import com.example.demo.persistence.model.Book;
+import com.example.demo.search.BookSearchIndex;
+import com.example.demo.validation.BookSortParser;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+// every public method is timed as books.service, tagged with the method (TimedAspect). Reads run in
+// read-only transactions, which the replicas profile serves from a replica; those behind a cache
+// leave it to the repository, so that a hit opens no transaction
 @Service
+@Timed(value = "books.service", description = "BookService calls", histogram = true)
 public class BookServiceImpl implements BookService {
 
     private static final int PAGINATION_VALUE = 10;
 
+    // distinguishes the write generations of this process from those of earlier runs
+    private final String catalogInstance = Long.toHexString(System.currentTimeMillis());
+
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private BookTotalEstimator bookTotalEstimator;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookEntityCache bookEntityCache;
+
+    @Autowired
+    private BookQueryCache bookQueryCache;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${books.import.batch-size:500}")
+    private int importBatchSize;
+
+    @Value("${books.reprice.batch-size:1000}")
+    private int repriceBatchSize;
+
+    @Value("${books.export.fetch-size:1000}")
+    private int exportFetchSize;
+
     public static int getPaginationValue() {
         return PAGINATION_VALUE;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Book> getBooks() {
         return bookRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Book> getPaginatedBooks(int page) {
         return bookRepository.findAll(PageRequest.of(page, PAGINATION_VALUE));
     }
 
     @Override
     public Optional<Book> getBookById(Long id) {
-        return bookRepository.findById(id);
+        return bookEntityCache.get(id, bookRepository::findById);
+    }
+
+    @Override
+    public Optional<BookVersion> getBookVersion(Long id) {
+        Optional<Book> cached = bookEntityCache.getIfPresent(id);
+        return cached.isPresent() ? cached.map(BookVersion::of) : bookRepository.findVersionById(id);
+    }
+
+    /**
+     * Changes whenever a write goes through this service, so it can validate any listing.
+     */
+    @Override
+    public String getCatalogVersion() {
+        return catalogInstance + "-" + bookQueryCache.generation();
     }
 
     @Override
@@ -48,36 +121,314 @@ public class BookServiceImpl implements BookService {
         ZonedDateTime zonedDateTime = ZonedDateTime.now(ZoneId.systemDefault());
         book.setCreatedAt(zonedDateTime);
         book.setLastModify(zonedDateTime);
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        onBookSaved(savedBook);
+        return savedBook;
+    }
+
+    /**
+     * Inserts the book unless an equal one (same title, author and release date) already exists,
+     * without a previous lookup. Returns the saved book, or an empty optional if it already existed.
+     */
+    @Override
+    public Optional<Book> saveBookIfAbsent(Book book) {
+        ZonedDateTime zonedDateTime = ZonedDateTime.now(ZoneId.systemDefault());
+        book.setCreatedAt(zonedDateTime);
+        book.setLastModify(zonedDateTime);
+        if (!bookRepository.insertIfAbsent(book)) {
+            return Optional.empty();
+        }
+        onBookSaved(book);
+        return Optional.of(book);
+    }
+
+    /**
+     * Imports the books in batches of {@code books.import.batch-size}, each written in its own
+     * transaction. Records that are invalid, repeated within the import, or already stored are
+     * reported and skipped. If a concurrent writer inserts a conflicting book meanwhile, the
+     * affected batch is retried row by row.
+     */
+    @Override
+    public BookImportSummary importBooks(Iterator<Book> books) {
+        List<BookImportResult> results = new ArrayList<>();
+        Set<BookKey> seen = new HashSet<>();
+        Map<Integer, Book> batch = new LinkedHashMap<>();
+        int index = 0;
+
+        while (true) {
+            Book book;
+            try {
+                if (!books.hasNext()) {
+                    break;
+                }
+                book = books.next();
+            } catch (RuntimeException e) {
+                results.add(BookImportResult.invalid(index, "Unreadable record: " + e.getMessage()));
+                break;
+            }
+
+            Set<ConstraintViolation<Book>> violations = validator.validate(book);
+            if (!violations.isEmpty()) {
+                results.add(BookImportResult.invalid(index, violations.stream()
+                        .map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "))));
+            } else if (!seen.add(BookKey.of(book))) {
+                results.add(BookImportResult.duplicate(index));
+            } else {
+                batch.put(index, book);
+                if (batch.size() == importBatchSize) {
+                    importBatch(batch, results);
+                    batch.clear();
+                }
+            }
+            index++;
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, results);
+        }
+        bookQueryCache.invalidateAll();
+        bookTotalEstimator.invalidateAll();
+
+        results.sort(Comparator.comparingInt(BookImportResult::index));
+        return BookImportSummary.of(results);
+    }
+
+    private void importBatch(Map<Integer, Book> batch, List<BookImportResult> results) {
+        Set<BookKey> existing = new HashSet<>(bookRepository.findKeysByTitleIn(
+                batch.values().stream().map(Book::getTitle).collect(Collectors.toSet())));
+        ZonedDateTime zonedDateTime = ZonedDateTime.now(ZoneId.systemDefault());
+
+        Map<Integer, Book> toInsert = new LinkedHashMap<>();
+        batch.forEach((index, book) -> {
+            if (existing.contains(BookKey.of(book))) {
+                results.add(BookImportResult.duplicate(index));
+            } else {
+                book.setId(null);
+                book.setCreatedAt(zonedDateTime);
+                book.setLastModify(zonedDateTime);
+                toInsert.put(index, book);
+            }
+        });
+
+        if (toInsert.isEmpty()) {
+            return;
+        }
+        try {
+            bookRepository.persistAll(new ArrayList<>(toInsert.values()));
+            toInsert.forEach((index, book) -> results.add(BookImportResult.created(index, book.getId())));
+        } catch (DataIntegrityViolationException e) {
+            toInsert.forEach((index, book) -> {
+                book.setId(null);
+                results.add(bookRepository.insertIfAbsent(book)
+                        ? BookImportResult.created(index, book.getId())
+                        : BookImportResult.duplicate(index));
+            });
+        }
+        toInsert.values().stream().filter(book -> book.getId() != null).forEach(bookSearchIndex::index);
     }
 
     @Override
     public Book updateBook(Book book) {
         book.setLastModify(ZonedDateTime.now(ZoneId.systemDefault()));
-        return bookRepository.save(book);
+        Book updatedBook;
+        try {
+            updatedBook = bookRepository.save(book);
+        } catch (OptimisticLockingFailureException e) {
+            bookEntityCache.evict(book.getId());
+            throw e;
+        }
+        onBookSaved(updatedBook);
+        return updatedBook;
+    }
+
+    /**
+     * Sets the price with a single conditional UPDATE instead of a merge. The update applies to
+     * {@code expectedVersion}, or to the current version when none is given, and fails with an
+     * {@link OptimisticLockingFailureException} if the book was modified in the meantime.
+     */
+    @Override
+    public Optional<Book> updateBookPrice(Long id, BigDecimal price, Long expectedVersion) {
+        Optional<Book> cached = bookEntityCache.getIfPresent(id);
+        Long version = expectedVersion;
+        if (version == null) {
+            Optional<BookVersion> current = getBookVersion(id);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            version = current.get().version();
+        }
+
+        ZonedDateTime lastModify = ZonedDateTime.now(ZoneId.systemDefault());
+        if (bookRepository.updatePrice(id, price, lastModify, version) == 0) {
+            bookEntityCache.evict(id);
+            if (!bookRepository.existsById(id)) {
+                return Optional.empty();
+            }
+            throw new OptimisticLockingFailureException("Book " + id + " was modified concurrently");
+        }
+
+        Optional<Book> updatedBook;
+        if (cached.isPresent() && version.equals(cached.get().getVersion())) {
+            Book book = cached.get();
+            book.setPrice(price);
+            book.setLastModify(lastModify);
+            book.setVersion(version + 1);
+            updatedBook = Optional.of(book);
+        } else {
+            updatedBook = bookRepository.findById(id);
+        }
+        updatedBook.ifPresent(this::onBookSaved);
+        return updatedBook;
+    }
+
+    /**
+     * Applies the prices in chunks of {@code books.reprice.batch-size}, each written by a single
+     * UPDATE in its own transaction, so a long run neither holds its locks until the end nor is
+     * undone as a whole by a late failure. Within a chunk the last price sent for an id wins.
+     */
+    @Override
+    public BookRepriceSummary repriceBooks(Iterator<BookPriceChange> changes) {
+        long updated = 0;
+        List<Long> missing = new ArrayList<>();
+        List<BookRepriceSummary.Invalid> invalid = new ArrayList<>();
+        Map<Long, BigDecimal> chunk = new LinkedHashMap<>();
+        int index = 0;
+
+        while (true) {
+            BookPriceChange change;
+            try {
+                if (!changes.hasNext()) {
+                    break;
+                }
+                change = changes.next();
+            } catch (RuntimeException e) {
+                invalid.add(new BookRepriceSummary.Invalid(index, "Unreadable record: " + e.getMessage()));
+                break;
+            }
+
+            if (change == null || change.id() == null || change.price() == null) {
+                invalid.add(new BookRepriceSummary.Invalid(index, "Both the id and the price are mandatory"));
+            } else if (change.price().signum() < 0) {
+                invalid.add(new BookRepriceSummary.Invalid(index, "The price must not be negative"));
+            } else {
+                chunk.put(change.id(), change.price().setScale(2, RoundingMode.HALF_UP));
+                if (chunk.size() == repriceBatchSize) {
+                    updated += repriceChunk(chunk, missing);
+                    chunk = new LinkedHashMap<>();
+                }
+            }
+            index++;
+        }
+        if (!chunk.isEmpty()) {
+            updated += repriceChunk(chunk, missing);
+        }
+        return new BookRepriceSummary(updated, missing, invalid);
+    }
+
+    private long repriceChunk(Map<Long, BigDecimal> prices, List<Long> missing) {
+        Set<Long> chunkMissing = bookRepository.updatePrices(prices, ZonedDateTime.now(ZoneId.systemDefault()));
+        prices.forEach((id, price) -> {
+            bookEntityCache.evict(id);
+            if (chunkMissing.contains(id)) {
+                missing.add(id);
+            } else {
+                bookSearchIndex.updatePrice(id, price);
+            }
+        });
+        bookQueryCache.invalidateAll();
+        bookTotalEstimator.invalidateAll();
+        return prices.size() - chunkMissing.size();
+    }
+
+    /**
+     * Raises (or lowers, for a negative percentage) the price of every book of the author. The
+     * books are walked in id order and repriced in chunks of {@code books.reprice.batch-size}, each
+     * in its own transaction.
+     */
+    @Override
+    public BookRepriceSummary repriceBooksByAuthor(String author, BigDecimal percent) {
+        if (percent.compareTo(BigDecimal.valueOf(-100)) <= 0) {
+            throw new IllegalArgumentException("The percentage must be greater than -100");
+        }
+        BigDecimal factor = BigDecimal.ONE.add(percent.movePointLeft(2));
+        long updated = 0;
+        long afterId = Long.MIN_VALUE;
+        List<Long> ids;
+
+        do {
+            ids = bookRepository.findIdsByAuthorAfter(author, afterId, repriceBatchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            Map<Long, BigDecimal> prices = bookRepository.adjustPrices(ids, author, factor, ZonedDateTime.now(ZoneId.systemDefault()));
+            ids.forEach(bookEntityCache::evict);
+            prices.forEach(bookSearchIndex::updatePrice);
+            bookQueryCache.invalidateAll();
+            bookTotalEstimator.invalidateAll();
+            updated += prices.size();
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == repriceBatchSize);
+
+        return new BookRepriceSummary(updated, List.of(), List.of());
+    }
+
+    private void onBookSaved(Book book) {
+        bookSearchIndex.index(book);
+        bookEntityCache.put(book);
+        bookQueryCache.invalidateAll();
+        bookTotalEstimator.invalidateAll();
     }
 
     @Override
     public void deleteBookById(Long id) {
         bookRepository.deleteById(id);
+        onBookDeleted(id);
+    }
+
+    /**
+     * Deletes the book only while it is still at {@code expectedVersion}. Returns false when it no
+     * longer exists and fails with an {@link OptimisticLockingFailureException} when it was modified
+     * in the meantime.
+     */
+    @Override
+    public boolean deleteBookById(Long id, Long expectedVersion) {
+        if (bookRepository.deleteByIdAndVersion(id, expectedVersion) == 0) {
+            bookEntityCache.evict(id);
+            if (!bookRepository.existsById(id)) {
+                return false;
+            }
+            throw new OptimisticLockingFailureException("Book " + id + " was modified concurrently");
+        }
+        onBookDeleted(id);
+        return true;
+    }
+
+    private void onBookDeleted(Long id) {
+        bookSearchIndex.remove(id);
+        bookEntityCache.evict(id);
+        bookQueryCache.invalidateAll();
+        bookTotalEstimator.invalidateAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean isExist(Book book) {
         return findByTitleAndAuthorAndReleaseDate(book.getTitle(), book.getAuthor(), book.getReleaseDate()).isPresent();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Book> findByTitle(String title) {
         return bookRepository.findByTitle(title);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Book> findByAuthor(String author) {
         return bookRepository.findByAuthor(author);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Book> findByTitleAndAuthorAndReleaseDate(String title, String author, LocalDate releaseDate) {
         return bookRepository.findByTitleAndAuthorAndReleaseDate(title, author, releaseDate);
     }
@@ -86,32 +437,94 @@ public class BookServiceImpl implements BookService {
     public Page<Book> getFilteredAndPaginatedBooks(int page, int size, String title, String author, BigDecimal startPrice, BigDecimal endPrice,
                                                    LocalDate releaseDateFrom, LocalDate releaseDateTo, String sortBy) {
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(getOrderListFromString(sortBy)));
+        Pageable pageable = PageRequest.of(page, size, BookSortParser.parse(sortBy));
+        BookFilter filter = new BookFilter(title, author, startPrice, endPrice, releaseDateFrom, releaseDateTo);
 
-        return bookRepository.findByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
-                title, author, startPrice, endPrice, releaseDateFrom, releaseDateTo, pageable);
+        return bookQueryCache.getPage(filter, pageable, () ->
+                bookRepository.findByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                        title, author, startPrice, endPrice, releaseDateFrom, releaseDateTo, pageable));
     }
 
     @Override
-    public List<Book> findByReleaseDateBetween(LocalDate releaseDateFrom, LocalDate releaseDateTo) {
-        return bookRepository.findByReleaseDateBetween(releaseDateFrom, releaseDateTo);
+    public Slice<Book> getFilteredBooksSlice(int page, int size, BookFilter filter, String sortBy) {
+        Pageable pageable = PageRequest.of(page, size, BookSortParser.parse(sortBy));
+
+        return bookQueryCache.getSlice(filter, pageable, () ->
+                bookRepository.readByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                        filter.title(), filter.author(), filter.startPrice(), filter.endPrice(),
+                        filter.releaseDateFrom(), filter.releaseDateTo(), pageable));
     }
 
-    private List<Sort.Order> getOrderListFromString(String sortBy) {
-        Set<Sort.Order> orders = new HashSet<>();
+    @Override
+    public Page<BookSummary> getFilteredBookSummaries(int page, int size, BookFilter filter, String sortBy) {
+        Pageable pageable = PageRequest.of(page, size, BookSortParser.parse(sortBy));
 
-        try {
-            String[] bookSortData = sortBy.replaceAll(" ","").split(",");
+        return bookQueryCache.getPage(BookSummary.class, filter, pageable, () ->
+                bookRepository.findSummariesByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                        filter.title(), filter.author(), filter.startPrice(), filter.endPrice(),
+                        filter.releaseDateFrom(), filter.releaseDateTo(), pageable));
+    }
 
-            for (String fieldSortData: bookSortData) {
-                String[] fieldSortDirection = fieldSortData.split(":");
-                orders.add(new Sort.Order(Sort.Direction.valueOf(fieldSortDirection[1].toUpperCase()), fieldSortDirection[0]));
-            }
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
+    @Override
+    public Slice<BookSummary> getFilteredBookSummariesSlice(int page, int size, BookFilter filter, String sortBy) {
+        Pageable pageable = PageRequest.of(page, size, BookSortParser.parse(sortBy));
+
+        return bookQueryCache.getSlice(BookSummary.class, filter, pageable, () ->
+                bookRepository.readSummariesByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                        filter.title(), filter.author(), filter.startPrice(), filter.endPrice(),
+                        filter.releaseDateFrom(), filter.releaseDateTo(), pageable));
+    }
+
+    @Override
+    public OptionalLong getEstimatedTotal(BookFilter filter) {
+        return bookTotalEstimator.estimate(filter);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Book> searchBooks(String query, BookFilter filter, int page, int size) {
+        if (!bookSearchIndex.isLoaded()) {
+            throw new SearchIndexLoadingException();
         }
+        Pageable pageable = PageRequest.of(page, size);
+        List<Long> ids = bookSearchIndex.search(query, filter);
+
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        List<Long> pageIds = ids.subList(from, Math.min(from + size, ids.size()));
+        Map<Long, Book> books = bookRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
 
-        return orders.stream().toList();
+        List<Book> content = pageIds.stream().map(books::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(content, pageable, ids.size());
+    }
+
+    @Override
+    public void exportBooks(BookFilter filter, String sortBy, Consumer<Book> action) {
+        Sort sort = BookSortParser.parse(sortBy).and(Sort.by(Sort.Direction.ASC, "id"));
+        bookRepository.forEachFiltered(filter, sort, exportFetchSize, action);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookCursorPage getFilteredBooksAfterCursor(BookFilter filter, int size, String sortBy, String cursor) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        Sort sort = BookSortParser.parse(sortBy).and(Sort.by(Sort.Direction.ASC, "id"));
+        BookCursor after = cursor == null || cursor.isBlank() ? null : BookCursor.decode(cursor, sort);
+
+        List<Book> books = bookRepository.findFilteredAfter(filter, sort, after, size + 1);
+        if (books.size() <= size) {
+            return new BookCursorPage(books, null);
+        }
+        List<Book> content = books.subList(0, size);
+        return new BookCursorPage(content, BookCursor.of(content.get(size - 1), sort).encode(sort));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> findByReleaseDateBetween(LocalDate releaseDateFrom, LocalDate releaseDateTo) {
+        return bookRepository.findByReleaseDateBetween(releaseDateFrom, releaseDateTo);
     }
 
 
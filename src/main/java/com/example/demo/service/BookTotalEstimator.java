@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.dao.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Approximate totals for filtered listings. The count query runs in the background and its result
+ * is served until it is older than the configured TTL, so list calls never wait for a COUNT. A
+ * write does not drop the totals: they are still served, and refreshed, as stale ones.
+ */
+@Component
+public class BookTotalEstimator {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private TaskExecutor taskExecutor;
+
+    @Value("${books.total-estimate.ttl:30s}")
+    private Duration ttl;
+
+    @Value("${books.total-estimate.max-entries:1000}")
+    private int maxEntries;
+
+    private final Map<BookFilter, Estimate> estimates = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BookFilter, Estimate> eldest) {
+            return size() > maxEntries;
+        }
+    });
+
+    private final Set<BookFilter> refreshing = ConcurrentHashMap.newKeySet();
+
+    // bumped by every write; estimates counted in an earlier generation are stale
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Returns the last known total for the filter, if any, and schedules a refresh when it is
+     * missing or stale.
+     */
+    public OptionalLong estimate(BookFilter filter) {
+        Estimate estimate = estimates.get(filter);
+        if (estimate == null || estimate.generation() != generation.get() || estimate.isOlderThan(ttl)) {
+            refresh(filter);
+        }
+        return estimate == null ? OptionalLong.empty() : OptionalLong.of(estimate.total());
+    }
+
+    /**
+     * Marks every estimate stale. They are still served until their refresh completes, and a count
+     * that started before this call is discarded instead of replacing them.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+    }
+
+    private void refresh(BookFilter filter) {
+        if (!refreshing.add(filter)) {
+            return;
+        }
+        try {
+            long started = generation.get();
+            taskExecutor.execute(() -> {
+                try {
+                    long total = bookRepository.countByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                            filter.title(), filter.author(), filter.startPrice(), filter.endPrice(),
+                            filter.releaseDateFrom(), filter.releaseDateTo());
+                    if (generation.get() == started) {
+                        estimates.put(filter, new Estimate(total, started, System.nanoTime()));
+                    }
+                } finally {
+                    refreshing.remove(filter);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(filter);
+            throw e;
+        }
+    }
+
+    private record Estimate(long total, long generation, long computedAt) {
+        boolean isOlderThan(Duration ttl) {
+            return System.nanoTime() - computedAt > ttl.toNanos();
+        }
+    }
+}
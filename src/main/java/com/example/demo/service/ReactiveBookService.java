@@ -0,0 +1,88 @@
+package com.example.demo.service;
+
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.dao.ReactiveBookRepository;
+import com.example.demo.persistence.model.Book;
+import com.example.demo.validation.BookSortParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookService {
+
+    @Autowired
+    private ReactiveBookRepository bookRepository;
+
+    public Flux<Book> getFilteredBooks(BookFilter filter, int page, int size, String sortBy) {
+        return bookRepository.findFiltered(filter, PageRequest.of(page, size, BookSortParser.parse(sortBy)));
+    }
+
+    public Mono<Long> countFilteredBooks(BookFilter filter) {
+        return bookRepository.countFiltered(filter);
+    }
+
+    public Mono<Book> getBookById(long id) {
+        return bookRepository.findById(id);
+    }
+
+    public Mono<Book> saveBookIfAbsent(Book book) {
+        ZonedDateTime zonedDateTime = ZonedDateTime.now(ZoneId.systemDefault());
+        book.setCreatedAt(zonedDateTime);
+        book.setLastModify(zonedDateTime);
+        return bookRepository.insertIfAbsent(book);
+    }
+
+    /**
+     * Writes the book only if it is still at {@code expectedVersion}, or at the version it was read
+     * with when none is given. Completes empty when the book no longer exists and fails with an
+     * {@link OptimisticLockingFailureException} when it was modified in the meantime.
+     */
+    public Mono<Book> updateBook(Book book, Long expectedVersion) {
+        long version = expectedVersion != null ? expectedVersion : book.getVersion() == null ? 0 : book.getVersion();
+        book.setLastModify(ZonedDateTime.now(ZoneId.systemDefault()));
+        return bookRepository.update(book, version)
+                .flatMap(updated -> {
+                    if (updated == 0) {
+                        return bookRepository.findById(book.getId()).flatMap(current -> Mono.<Book>error(
+                                new OptimisticLockingFailureException("Book " + book.getId() + " was modified concurrently")));
+                    }
+                    book.setVersion(version + 1);
+                    return Mono.just(book);
+                });
+    }
+
+    public Mono<Book> updateBookPrice(long id, BigDecimal price, Long expectedVersion) {
+        return bookRepository.findById(id)
+                .flatMap(book -> {
+                    book.setPrice(price);
+                    return updateBook(book, expectedVersion);
+                });
+    }
+
+    public Mono<Void> deleteBookById(long id) {
+        return bookRepository.deleteById(id).then();
+    }
+
+    /**
+     * Deletes the book only while it is still at {@code expectedVersion}. Emits true once deleted,
+     * false when it no longer exists, and fails with an {@link OptimisticLockingFailureException}
+     * when it was modified in the meantime.
+     */
+    public Mono<Boolean> deleteBookById(long id, long expectedVersion) {
+        return bookRepository.delete(id, expectedVersion)
+                .flatMap(deleted -> deleted > 0 ? Mono.just(true) : bookRepository.findById(id)
+                        .flatMap(current -> Mono.<Boolean>error(
+                                new OptimisticLockingFailureException("Book " + id + " was modified concurrently")))
+                        .defaultIfEmpty(false));
+    }
+}
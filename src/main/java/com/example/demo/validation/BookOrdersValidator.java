@@ -1,18 +1,27 @@
 package com.example.demo.validation;
 
+import com.example.demo.error.InvalidSortException;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class BookOrdersValidator implements ConstraintValidator<BookOrders, String> {
     @Override
     public boolean isValid(String s, ConstraintValidatorContext constraintValidatorContext) {
-        Pattern pattern = Pattern.compile("^((title|author|price|releaseDate):(?i)(ASC|DESC),\\p{Blank}?){0,3}" +
-                "((title|author|price|releaseDate):(?i)(ASC|DESC))|\\p{Space}*$");
+        try {
+            BookSortParser.parse(s);
+            return true;
+        } catch (InvalidSortException e) {
+            if (constraintValidatorContext != null) {
+                constraintValidatorContext.disableDefaultConstraintViolation();
+                constraintValidatorContext.buildConstraintViolationWithTemplate(escapeTemplate(e.getMessage()))
+                        .addConstraintViolation();
+            }
+            return false;
+        }
+    }
 
-        return pattern.matcher(s).matches();
+    // the message echoes user input, which must not be interpolated as a message template
+    private static String escapeTemplate(String message) {
+        return message.replaceAll("([\\\\{}$])", "\\\\$1");
     }
 }
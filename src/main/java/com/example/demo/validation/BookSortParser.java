@@ -0,0 +1,120 @@
+package com.example.demo.validation;
+
+import com.example.demo.error.InvalidSortException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the {@code sortBy} parameter, a comma separated list of {@code property:direction} pairs
+ * such as {@code "title:ASC, price:desc"}, into a {@link Sort} that keeps the left to right priority.
+ * Properties are case sensitive, directions are not, and each property may appear only once. A blank
+ * specification means unsorted.
+ * <p>
+ * Parsed sorts are immutable and shared: the same specification always yields the same instance
+ * from a bounded cache, so validating and then applying a sort on a request parses it once.
+ */
+public final class BookSortParser {
+
+    private static final String[] PROPERTIES = {"title", "author", "price", "releaseDate"};
+    private static final String EXPECTED_PROPERTY = "expected one of title, author, price, releaseDate";
+    private static final int MAXIMUM_CACHED_SORTS = 256;
+
+    private static final Cache<String, Sort> SORTS = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_CACHED_SORTS)
+            .build();
+
+    private BookSortParser() {
+    }
+
+    public static Sort parse(String sortBy) {
+        if (sortBy == null) {
+            return Sort.unsorted();
+        }
+        return SORTS.get(sortBy, BookSortParser::parseUncached);
+    }
+
+    static Sort parseUncached(String sortBy) {
+        int length = sortBy.length();
+        int position = skipBlanks(sortBy, 0);
+        if (position == length) {
+            return Sort.unsorted();
+        }
+
+        List<Sort.Order> orders = new ArrayList<>(PROPERTIES.length);
+        while (true) {
+            int start = position;
+            position = skipLetters(sortBy, position);
+            String property = property(sortBy, start, position);
+            if (property == null) {
+                throw new InvalidSortException(sortBy, start, start == position
+                        ? EXPECTED_PROPERTY
+                        : "unknown property '" + sortBy.substring(start, position) + "', " + EXPECTED_PROPERTY);
+            }
+            for (Sort.Order order : orders) {
+                if (order.getProperty().equals(property)) {
+                    throw new InvalidSortException(sortBy, start, "duplicate property '" + property + "'");
+                }
+            }
+
+            position = skipBlanks(sortBy, position);
+            if (position == length || sortBy.charAt(position) != ':') {
+                throw new InvalidSortException(sortBy, position, "expected ':' after '" + property + "'");
+            }
+            position = skipBlanks(sortBy, position + 1);
+
+            start = position;
+            position = skipLetters(sortBy, position);
+            Sort.Direction direction = direction(sortBy, start, position);
+            if (direction == null) {
+                throw new InvalidSortException(sortBy, start, "expected ASC or DESC for '" + property + "'");
+            }
+            orders.add(new Sort.Order(direction, property));
+
+            position = skipBlanks(sortBy, position);
+            if (position == length) {
+                return Sort.by(orders);
+            }
+            if (sortBy.charAt(position) != ',') {
+                throw new InvalidSortException(sortBy, position, "expected ',' or end of input");
+            }
+            position = skipBlanks(sortBy, position + 1);
+        }
+    }
+
+    private static String property(String sortBy, int start, int end) {
+        for (String property : PROPERTIES) {
+            if (property.length() == end - start && sortBy.startsWith(property, start)) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    private static Sort.Direction direction(String sortBy, int start, int end) {
+        if (end - start == 3 && sortBy.regionMatches(true, start, "ASC", 0, 3)) {
+            return Sort.Direction.ASC;
+        }
+        if (end - start == 4 && sortBy.regionMatches(true, start, "DESC", 0, 4)) {
+            return Sort.Direction.DESC;
+        }
+        return null;
+    }
+
+    private static int skipBlanks(String sortBy, int position) {
+        while (position < sortBy.length() && Character.isWhitespace(sortBy.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int skipLetters(String sortBy, int position) {
+        while (position < sortBy.length() && Character.isLetter(sortBy.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,15 @@
+CREATE TABLE books (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title        VARCHAR(255) NOT NULL,
+    author       VARCHAR(255) NOT NULL,
+    price        NUMERIC(38, 2) NOT NULL,
+    release_date DATE NOT NULL,
+    created_at   TIMESTAMP(6) WITH TIME ZONE,
+    last_modify  TIMESTAMP(6) WITH TIME ZONE
+);
+
+-- serves findByTitleAndAuthorAndReleaseDate (isExist) and, by its leading column, findByTitle
+CREATE UNIQUE INDEX ux_books_title_author_release_date ON books (title, author, release_date);
+CREATE INDEX ix_books_author ON books (author);
+CREATE INDEX ix_books_price ON books (price);
+CREATE INDEX ix_books_release_date ON books (release_date);
@@ -0,0 +1,7 @@
+-- ids come from a pooled sequence so that Hibernate can batch inserts; the increment must match
+-- the allocationSize of the generator declared on Book
+CREATE SEQUENCE books_seq START WITH 1 INCREMENT BY 50;
+-- the pooled generator hands out the 50 ids up to each value it draws, so the first value must
+-- leave every id already taken by the identity column below its block
+ALTER SEQUENCE books_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM books);
+ALTER TABLE books ALTER COLUMN id DROP IDENTITY;
@@ -0,0 +1,2 @@
+-- optimistic locking: every update bumps the version and only applies to the version it was read at
+ALTER TABLE books ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,41 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AotConditionsEnvironmentPostProcessorTest {
+
+    @Test
+    public void givenProdProperties_whenSettledProperties_thenNone() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.main.lazy-initialization", "true")
+                .withProperty("books.compression.enabled", "true")
+                .withProperty("books.sql-metrics.enabled", "true");
+
+        assertEquals(List.of(), AotConditionsEnvironmentPostProcessor.settledProperties(environment));
+    }
+
+    @Test
+    public void givenFileReplicasAndVirtualProperties_whenSettledProperties_thenListThem() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("books.storage.directory", "./data")
+                .withProperty("books.replicas.urls", "jdbc:h2:mem:replica-0")
+                .withProperty("books.virtual-threads.enabled", "true")
+                .withProperty("books.compression.enabled", "false");
+
+        assertEquals(List.of("books.storage.directory", "books.replicas.urls", "books.virtual-threads.enabled",
+                "books.compression.enabled"), AotConditionsEnvironmentPostProcessor.settledProperties(environment));
+    }
+
+    @Test
+    public void givenPerfOpenInView_whenSettledProperties_thenListIt() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.jpa.open-in-view", "false");
+
+        assertEquals(List.of("spring.jpa.open-in-view"), AotConditionsEnvironmentPostProcessor.settledProperties(environment));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.config;
+
+import com.example.demo.config.FileStorageConfiguration.RestoreMode;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenSnapshot_whenRestored_thenDatabaseHasTheCatalog() throws Exception {
+        JdbcTemplate source = jdbcTemplate(directory.resolve("source"), "catalog");
+        source.execute("create table books (id bigint primary key, title varchar(255))");
+        source.update("insert into books values (1, 'Don Quijote de la Mancha'), (2, 'Rebelión en la granja')");
+        Path snapshot = directory.resolve("snapshots").resolve("books-snapshot.zip");
+
+        Map<String, Object> result = new CatalogSnapshotEndpoint(source, snapshot).snapshot();
+
+        assertTrue(Files.isRegularFile(snapshot));
+        assertEquals(Files.size(snapshot), result.get("bytes"));
+        Path restored = directory.resolve("restored");
+        assertTrue(FileStorageConfiguration.restore(snapshot, restored, "books", RestoreMode.IF_MISSING));
+        assertEquals(2, jdbcTemplate(restored, "books").queryForObject("select count(*) from books", Long.class));
+    }
+
+    @Test
+    public void givenExistingDatabase_whenRestoreIfMissing_thenKeepIt() throws Exception {
+        JdbcTemplate source = jdbcTemplate(directory.resolve("source"), "books");
+        source.execute("create table books (id bigint primary key)");
+        Path snapshot = directory.resolve("books-snapshot.zip");
+        new CatalogSnapshotEndpoint(source, snapshot).snapshot();
+        source.update("insert into books values (1)");
+
+        assertFalse(FileStorageConfiguration.restore(snapshot, directory.resolve("source"), "books", RestoreMode.IF_MISSING));
+        assertFalse(FileStorageConfiguration.restore(snapshot, directory.resolve("other"), "books", RestoreMode.NEVER));
+        assertFalse(FileStorageConfiguration.restore(directory.resolve("missing.zip"), directory.resolve("other"), "books",
+                RestoreMode.ALWAYS));
+        assertEquals(1, source.queryForObject("select count(*) from books", Long.class));
+    }
+
+    private static JdbcTemplate jdbcTemplate(Path directory, String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:file:" + directory.resolve(name).toAbsolutePath());
+        return new JdbcTemplate(dataSource);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionFilterTest {
+
+    private static final int MIN_RESPONSE_SIZE = 256;
+
+    private final CompressionFilter compressionFilter = new CompressionFilter(MIN_RESPONSE_SIZE, 6,
+            MediaType.parseMediaTypes("application/json,application/*+json,text/csv"));
+
+    @Test
+    public void givenSmallResponse_whenFilter_thenSendUncompressedWithLength() throws Exception {
+        byte[] body = "{\"title\":\"Don Quijote de la Mancha\"}".getBytes(StandardCharsets.UTF_8);
+
+        MockHttpServletResponse response = filter("gzip, deflate", writing("application/hal+json", body));
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(body.length, response.getContentLength());
+        assertArrayEquals(body, response.getContentAsByteArray());
+        assertTrue(response.getHeaders("Vary").contains("Accept-Encoding"));
+    }
+
+    @Test
+    public void givenLargeResponse_whenAcceptGzip_thenSendGzipped() throws Exception {
+        byte[] body = catalog();
+
+        MockHttpServletResponse response = filter("gzip, deflate", writing("application/hal+json", body));
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertTrue(response.getContentAsByteArray().length < body.length);
+        assertArrayEquals(body, read(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+    }
+
+    @Test
+    public void givenETag_whenCompressed_thenMakeItWeak() throws Exception {
+        byte[] body = catalog();
+
+        MockHttpServletResponse compressed = filter("gzip", (request, response) -> {
+            ((HttpServletResponse) response).setHeader("ETag", "\"7-3\"");
+            writing("application/hal+json", body).doFilter(request, response);
+        });
+        MockHttpServletResponse identity = filter(null, (request, response) -> {
+            ((HttpServletResponse) response).setHeader("ETag", "\"7-3\"");
+            writing("application/hal+json", body).doFilter(request, response);
+        });
+
+        assertEquals("W/\"7-3\"", compressed.getHeader("ETag"));
+        assertEquals("\"7-3\"", identity.getHeader("ETag"));
+    }
+
+    @Test
+    public void givenLargeResponse_whenDeflatePreferred_thenSendDeflated() throws Exception {
+        byte[] body = catalog();
+
+        MockHttpServletResponse response = filter("gzip;q=0.5, deflate", writing("text/csv", body));
+
+        assertEquals("deflate", response.getHeader("Content-Encoding"));
+        assertArrayEquals(body, read(new InflaterInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+    }
+
+    @Test
+    public void givenLargeResponse_whenWrittenInPiecesAndFlushed_thenSendCompressed() throws Exception {
+        byte[] body = catalog();
+
+        MockHttpServletResponse response = filter("gzip", (request, servletResponse) -> {
+            servletResponse.setContentType("application/json");
+            servletResponse.setContentLength(body.length);
+            for (int offset = 0; offset < body.length; offset += 100) {
+                servletResponse.getOutputStream().write(body, offset, Math.min(100, body.length - offset));
+                servletResponse.getOutputStream().flush();
+            }
+        });
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertNull(response.getHeader("Content-Length"));
+        assertArrayEquals(body, read(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+    }
+
+    @Test
+    public void givenSmallResponse_whenFlushed_thenStillSendUncompressed() throws Exception {
+        byte[] body = "{\"title\":\"Don Quijote de la Mancha\"}".getBytes(StandardCharsets.UTF_8);
+
+        MockHttpServletResponse response = filter("gzip", (request, servletResponse) -> {
+            writing("application/json", body).doFilter(request, servletResponse);
+            servletResponse.getOutputStream().flush();
+            servletResponse.flushBuffer();
+        });
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(body.length, response.getContentLength());
+        assertArrayEquals(body, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void givenUnlistedContentType_whenFilter_thenSendUncompressed() throws Exception {
+        byte[] body = catalog();
+
+        MockHttpServletResponse response = filter("gzip", writing("image/png", body));
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertArrayEquals(body, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void givenNoAcceptEncoding_whenFilter_thenSendUncompressed() throws Exception {
+        byte[] body = catalog();
+
+        MockHttpServletResponse response = filter(null, writing("application/json", body));
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertArrayEquals(body, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void givenAcceptEncoding_whenNegotiate_thenPreferHighestQuality() {
+        assertEquals("gzip", CompressionFilter.negotiate("deflate, gzip"));
+        assertEquals("gzip", CompressionFilter.negotiate("br, *"));
+        assertEquals("deflate", CompressionFilter.negotiate("gzip;q=0, *;q=0.1"));
+        assertEquals("deflate", CompressionFilter.negotiate("GZIP;q=0.2, deflate;q=0.8"));
+        assertNull(CompressionFilter.negotiate("identity, br"));
+        assertNull(CompressionFilter.negotiate("*;q=0"));
+        assertNull(CompressionFilter.negotiate(""));
+    }
+
+    private MockHttpServletResponse filter(String acceptEncoding, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        compressionFilter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static FilterChain writing(String contentType, byte[] body) {
+        return (request, response) -> {
+            response.setContentType(contentType);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        };
+    }
+
+    private static byte[] catalog() {
+        StringBuilder catalog = new StringBuilder("[");
+        for (int i = 0; i < 50; i++) {
+            catalog.append(i == 0 ? "" : ",").append("{\"id\":").append(i)
+                    .append(",\"title\":\"Don Quijote de la Mancha\",\"author\":\"Miguel de Cervantes\",\"price\":999.95}");
+        }
+        return catalog.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.demo.config;
+
+import com.example.demo.config.ReplicaRoutingDataSource.Client;
+import com.example.demo.config.ReplicaRoutingDataSource.Replica;
+import com.example.demo.config.ReplicaRoutingDataSource.Selection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReplicaRoutingDataSource routingDataSource;
+    private ReplicationStandIn standIn;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+
+    @Test
+    public void givenReplicatedCatalog_whenReadOnly_thenReadFromTheReplicasInTurn() {
+        setUp(Selection.ROUND_ROBIN);
+        insert(1L, "Rebelión en la granja");
+        standIn.replicate();
+
+        String first = database();
+        String second = database();
+
+        assertTrue(first.contains("replica"));
+        assertTrue(second.contains("replica"));
+        assertNotEquals(first, second);
+        assertEquals(1L, readOnly.<Long>execute(status -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Long.class)));
+        assertEquals(3, meterRegistry.find("books.datasource.connections").counters().stream()
+                .filter(counter -> counter.getId().getTag("target").startsWith("replica"))
+                .mapToDouble(counter -> counter.count()).sum());
+    }
+
+    @Test
+    public void givenWriteNotReplicated_whenItsClientReads_thenReadFromPrimary() {
+        setUp(Selection.ROUND_ROBIN);
+        insert(1L, "Rebelión en la granja");
+        standIn.replicate();
+        ReplicaRoutingDataSource.bindClient(new Client(0, 0, client -> {}));
+        try {
+            insert(2L, "1984");
+
+            assertTrue(database().contains("primary"));
+            assertEquals(2L, readOnly.<Long>execute(status -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Long.class)));
+
+            standIn.replicate();
+
+            assertTrue(database().contains("replica"));
+            assertEquals(2L, readOnly.<Long>execute(status -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Long.class)));
+        } finally {
+            ReplicaRoutingDataSource.unbindClient();
+        }
+    }
+
+    @Test
+    public void givenWriteNotReplicated_whenAnotherClientReads_thenReadFromReplica() {
+        setUp(Selection.ROUND_ROBIN);
+        insert(1L, "Rebelión en la granja");
+        standIn.replicate();
+        ReplicaRoutingDataSource.bindClient(new Client(0, 0, client -> {}));
+        try {
+            insert(2L, "1984");
+        } finally {
+            ReplicaRoutingDataSource.unbindClient();
+        }
+
+        ReplicaRoutingDataSource.bindClient(new Client(0, 0, client -> {}));
+        try {
+            assertTrue(database().contains("replica"));
+            assertEquals(1L, readOnly.<Long>execute(status -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Long.class)));
+        } finally {
+            ReplicaRoutingDataSource.unbindClient();
+        }
+    }
+
+    @Test
+    public void givenWriteCookie_whenNextRequestReads_thenReadFromPrimary() throws Exception {
+        setUp(Selection.ROUND_ROBIN);
+        standIn.replicate();
+        ReadYourWritesFilter filter = new ReadYourWritesFilter();
+
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), written, (request, response) -> insert(1L, "Rebelión en la granja"));
+        Cookie cookie = written.getCookie(ReadYourWritesFilter.COOKIE);
+        assertNotNull(cookie);
+
+        List<String> databases = new ArrayList<>();
+        MockHttpServletRequest sameClient = new MockHttpServletRequest();
+        sameClient.setCookies(cookie);
+        filter.doFilter(sameClient, new MockHttpServletResponse(), (request, response) -> databases.add(database()));
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (request, response) -> databases.add(database()));
+
+        assertTrue(databases.get(0).contains("primary"));
+        assertTrue(databases.get(1).contains("replica"));
+    }
+
+    @Test
+    public void givenReadWrite_whenConnecting_thenUsePrimary() {
+        setUp(Selection.ROUND_ROBIN);
+        standIn.replicate();
+        TransactionTemplate readWrite = new TransactionTemplate(readOnly.getTransactionManager());
+
+        assertTrue(jdbcTemplate.queryForObject("SELECT DATABASE()", String.class).toLowerCase(Locale.ROOT).contains("primary"));
+        assertTrue(readWrite.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class))
+                .toLowerCase(Locale.ROOT).contains("primary"));
+    }
+
+    @Test
+    public void givenQueriesOnPrimary_whenNotReadOnly_thenCountNoWrite() {
+        setUp(Selection.ROUND_ROBIN);
+        TransactionTemplate readWrite = new TransactionTemplate(readOnly.getTransactionManager());
+
+        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Long.class);
+        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books WHERE id = ?", Long.class, 1L);
+        readWrite.execute(status -> jdbcTemplate.queryForObject("/* count */ select count(*) from books", Long.class));
+
+        assertEquals(0, routingDataSource.getWrites());
+    }
+
+    @Test
+    public void givenWriteInTransaction_whenCommittedOrRolledBack_thenCountOnlyTheCommit() {
+        setUp(Selection.ROUND_ROBIN);
+        TransactionTemplate readWrite = new TransactionTemplate(readOnly.getTransactionManager());
+
+        readWrite.executeWithoutResult(status -> {
+            insert(1L, "Rebelión en la granja");
+            insert(2L, "1984");
+            assertEquals(0, routingDataSource.getWrites());
+        });
+        assertEquals(1, routingDataSource.getWrites());
+
+        readWrite.executeWithoutResult(status -> {
+            insert(3L, "Homenaje a Cataluña");
+            status.setRollbackOnly();
+        });
+        assertEquals(1, routingDataSource.getWrites());
+
+        insert(4L, "La marcha hacia Wigan Pier");
+        assertEquals(2, routingDataSource.getWrites());
+    }
+
+    @Test
+    public void givenBusyReplica_whenLeastLoaded_thenUseTheOther() {
+        setUp(Selection.LEAST_LOADED);
+        standIn.replicate();
+
+        readOnly.executeWithoutResult(status -> {
+            String busy = jdbcTemplate.queryForObject("SELECT DATABASE()", String.class).toLowerCase(Locale.ROOT);
+            String other = databaseOfNewConnection();
+
+            assertTrue(busy.contains("replica"));
+            assertTrue(other.contains("replica"));
+            assertNotEquals(busy, other);
+            // round-robin would come back to the busy one
+            assertEquals(other, databaseOfNewConnection());
+        });
+    }
+
+    @Test
+    public void givenRoutedPools_whenConnecting_thenReportHikariMeters() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(ReplicaRoutingConfiguration.class)
+                .withPropertyValues("books.replicas.urls=jdbc:h2:mem:metrics-replica-0")
+                .withBean(MeterRegistry.class, () -> meterRegistry)
+                .withBean(DataSourceProperties.class, () -> {
+                    DataSourceProperties properties = new DataSourceProperties();
+                    properties.setUrl("jdbc:h2:mem:metrics-primary");
+                    return properties;
+                })
+                .run(context -> {
+                    ReplicaRoutingDataSource routing = context.getBean(DataSource.class).unwrap(ReplicaRoutingDataSource.class);
+                    routing.getPrimary().getConnection().close();
+                    routing.getReplicas().get(0).getDataSource().getConnection().close();
+
+                    assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "primary").gauge());
+                    assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "replica-0").gauge());
+                });
+    }
+
+    private void setUp(Selection selection) {
+        int id = DATABASES.incrementAndGet();
+        DataSource primary = h2("routing-primary-" + id);
+        Flyway.configure().dataSource(primary).locations("classpath:db/migration").load().migrate();
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(
+                new Replica("replica-0", h2("routing-replica-0-" + id), true),
+                new Replica("replica-1", h2("routing-replica-1-" + id), true)),
+                selection, Duration.ofMinutes(1), () -> meterRegistry);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+        standIn = new ReplicationStandIn(routingDataSource, new String[]{"classpath:db/migration"}, Duration.ofSeconds(1));
+        standIn.migrate();
+    }
+
+    private void insert(Long id, String title) {
+        jdbcTemplate.update("INSERT INTO books (id, title, author, price, release_date) VALUES (?, ?, ?, ?, ?)",
+                id, title, "George Orwell", new BigDecimal("9.99"), LocalDate.of(1945, 8, 17));
+    }
+
+    private String database() {
+        return readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class)).toLowerCase(Locale.ROOT);
+    }
+
+    private String databaseOfNewConnection() {
+        try (Connection connection = routingDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT DATABASE()")) {
+            rs.next();
+            return rs.getString(1).toLowerCase(Locale.ROOT);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementMetricsDataSourceTest {
+
+    private MeterRegistry meterRegistry;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:statement-metrics;DB_CLOSE_DELAY=-1");
+        meterRegistry = new SimpleMeterRegistry();
+        jdbcTemplate = new JdbcTemplate(new StatementMetricsDataSource(h2, () -> meterRegistry, Duration.ofMinutes(1), 0));
+        jdbcTemplate.execute("create table if not exists shelf (id bigint primary key, title varchar(100))");
+        jdbcTemplate.update("delete from shelf");
+    }
+
+    @Test
+    public void givenStatements_whenExecuted_thenTimedByKind() {
+        jdbcTemplate.update("insert into shelf (id, title) values (?, ?)", 1L, "Don Quijote de la Mancha");
+        jdbcTemplate.update("insert into shelf (id, title) values (?, ?)", 2L, "Rebelión en la granja");
+        jdbcTemplate.queryForList("select title from shelf where id > ?", String.class, 0L);
+        jdbcTemplate.queryForObject("select count(*) from shelf", Long.class);
+
+        assertEquals(2, timer("insert", "success").count());
+        assertEquals(1, timer("select", "success").count());
+        assertEquals(1, timer("count", "success").count());
+        // the table set up
+        assertEquals(1, timer("other", "success").count());
+        assertEquals(1, timer("delete", "success").count());
+    }
+
+    @Test
+    public void givenFailingStatement_whenExecuted_thenTimedAsError() {
+        assertThrows(RuntimeException.class, () -> jdbcTemplate.queryForList("select missing from shelf"));
+
+        assertEquals(1, timer("select", "error").count());
+    }
+
+    @Test
+    public void givenSql_whenKindOf_thenClassifyByLeadingKeyword() {
+        assertEquals("count", StatementMetricsDataSource.kindOf("select count(b1_0.id) from books b1_0 where b1_0.price between ? and ?"));
+        assertEquals("select", StatementMetricsDataSource.kindOf("  SELECT id FROM books WHERE author = ?"));
+        assertEquals("select", StatementMetricsDataSource.kindOf("with recent as (select id from books) select * from recent"));
+        assertEquals("update", StatementMetricsDataSource.kindOf("update books set price = ? where id = ?"));
+        assertEquals("other", StatementMetricsDataSource.kindOf("merge into books key (id) values (?)"));
+        assertEquals("other", StatementMetricsDataSource.kindOf(null));
+    }
+
+    private Timer timer(String kind, String outcome) {
+        Timer timer = meterRegistry.find("books.jdbc.statements").tag("kind", kind).tag("outcome", outcome).timer();
+        return timer != null ? timer : Timer.builder("absent").register(new SimpleMeterRegistry());
+    }
+}
@@ -1,47 +1,75 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.BinaryMediaTypesConfiguration;
+import com.example.demo.dto.BookCursorPage;
+import com.example.demo.dto.BookExportWriter;
+import com.example.demo.dto.BookImportResult;
+import com.example.demo.dto.BookImportSummary;
+import com.example.demo.dto.BookJsonSerializer;
 import com.example.demo.dto.BookModelAssembler;
+import com.example.demo.dto.BookPriceChange;
+import com.example.demo.dto.BookRepriceSummary;
+import com.example.demo.error.BookAlreadyExistException;
 import com.example.demo.error.BookNotFoundException;
 import com.example.demo.error.ErrorAdvice;
+import com.example.demo.error.InvalidCursorException;
+import com.example.demo.error.SearchIndexLoadingException;
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.dao.BookSummary;
+import com.example.demo.persistence.dao.BookVersion;
 import com.example.demo.persistence.model.Book;
 import com.example.demo.service.BookService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.*;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
 import static org.mockito.BDDMockito.given;
-import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.ArgumentMatchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.hamcrest.CoreMatchers.is;
 
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 //@ExtendWith(SpringExtension.class)
 @WebMvcTest
-@ContextConfiguration(classes = {BookController.class, BookModelAssembler.class, ErrorAdvice.class})
+@ContextConfiguration(classes = {BookController.class, BookModelAssembler.class, BookExportWriter.class, BookJsonSerializer.class,
+        BinaryMediaTypesConfiguration.class, ErrorAdvice.class})
 public class BookControllerTest {
 
     @MockBean
@@ -80,7 +108,7 @@ public class BookControllerTest {
     @Test
     public void givenBookObject_whenCreateBook_thenReturnSavedBook() throws Exception {
 //        given - precondition or setup
-        Mockito.when(bookService.saveBook( any(Book.class) )).thenReturn(book1);
+        Mockito.when(bookService.saveBookIfAbsent( any(Book.class) )).thenReturn(Optional.of(book1));
 
 //        when - action
         mockMvc.perform(post("/api/books")
@@ -97,6 +125,102 @@ public class BookControllerTest {
 
     }
 
+    // JUnit test for POST new book
+    // negative scenario - the book already exist
+    @Test
+    public void givenExistingBookObject_whenCreateBook_thenReturnConflict() throws Exception {
+        Mockito.when(bookService.saveBookIfAbsent( any(Book.class) )).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/books")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(objectMapper.writeValueAsString(book1)))
+                .andExpect(status().isConflict())
+                .andExpect(result -> assertTrue(result.getResolvedException() instanceof BookAlreadyExistException))
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).isExist(any(Book.class));
+    }
+
+    // JUnit test for POST bulk import
+    // NDJSON body, one book per line
+    @Test
+    public void givenNdjsonBody_whenImportBooks_thenReturnSummary() throws Exception {
+        List<Book> received = new ArrayList<>();
+        Mockito.when(bookService.importBooks( any() )).thenAnswer(invocation -> {
+            Iterator<Book> books = invocation.getArgument(0);
+            books.forEachRemaining(received::add);
+            return BookImportSummary.of(List.of(BookImportResult.created(0, 1L), BookImportResult.duplicate(1)));
+        });
+
+        mockMvc.perform(post("/api/books/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+                .content(objectMapper.writeValueAsString(book1) + "\n" + objectMapper.writeValueAsString(book2) + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.duplicate", is(1)))
+                .andExpect(jsonPath("$.results[1].status", is("DUPLICATE")))
+                .andDo(print());
+        assertEquals(List.of(book1, book2), received);
+    }
+
+    // JUnit test for POST bulk import
+    // JSON array body
+    @Test
+    public void givenJsonArrayBody_whenImportBooks_thenReadEveryBook() throws Exception {
+        List<Book> received = new ArrayList<>();
+        Mockito.when(bookService.importBooks( any() )).thenAnswer(invocation -> {
+            Iterator<Book> books = invocation.getArgument(0);
+            books.forEachRemaining(received::add);
+            return BookImportSummary.of(List.of(BookImportResult.created(0, 1L), BookImportResult.created(1, 2L)));
+        });
+
+        mockMvc.perform(post("/api/books/bulk")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(objectMapper.writeValueAsString(List.of(book1, book2))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(2)))
+                .andDo(print());
+        assertEquals(List.of(book1, book2), received);
+    }
+
+    // JUnit test for PATCH batch repricing
+    // NDJSON body, one {id, price} pair per line
+    @Test
+    public void givenNdjsonPrices_whenRepriceBooks_thenReturnSummary() throws Exception {
+        List<BookPriceChange> received = new ArrayList<>();
+        Mockito.when(bookService.repriceBooks( any() )).thenAnswer(invocation -> {
+            Iterator<BookPriceChange> changes = invocation.getArgument(0);
+            changes.forEachRemaining(received::add);
+            return new BookRepriceSummary(1, List.of(99L), List.of());
+        });
+
+        mockMvc.perform(patch("/api/books/prices")
+                .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+                .content("{\"id\": 1, \"price\": 12.5}\n{\"id\": 99, \"price\": 3}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(1)))
+                .andExpect(jsonPath("$.missing[0]", is(99)))
+                .andDo(print());
+        assertEquals(List.of(new BookPriceChange(1L, new BigDecimal("12.5")), new BookPriceChange(99L, new BigDecimal("3"))), received);
+    }
+
+    // JUnit test for PATCH batch repricing
+    // rule over the books of an author
+    @Test
+    public void givenAuthorRule_whenRepriceBooks_thenApplyPercentage() throws Exception {
+        given(bookService.repriceBooksByAuthor("Author", new BigDecimal("5")))
+                .willReturn(new BookRepriceSummary(3, List.of(), List.of()));
+
+        mockMvc.perform(patch("/api/books/prices").param("author", "Author").param("percent", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(3)))
+                .andDo(print());
+
+        mockMvc.perform(patch("/api/books/prices").param("author", "Author").param("percent", "-100"))
+                .andExpect(status().isBadRequest())
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).repriceBooksByAuthor(anyString(), eq(new BigDecimal("-100")));
+    }
+
     // JUnit test for GET all books
     @Test
     public void givenBookList_whenGetAllBooks_thenReturnBookList() throws Exception {
@@ -120,6 +244,148 @@ public class BookControllerTest {
                  .andDo(print());
     }
 
+    // JUnit test for GET all books without the total count
+    @Test
+    public void givenWithTotalFalse_whenGetAllBooks_thenReturnSliceWithoutCount() throws Exception {
+        Slice<Book> bookSlice = new SliceImpl<>(List.of(book1, book2), PageRequest.of(0, 2), true);
+        Mockito.when(bookService.getFilteredBooksSlice(anyInt(), anyInt(), any(BookFilter.class), anyString())).thenReturn(bookSlice);
+        Mockito.when(bookService.getEstimatedTotal(any(BookFilter.class))).thenReturn(OptionalLong.of(42));
+
+        mockMvc.perform(get("/api/books").param("withTotal", "false").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookController.TOTAL_COUNT_ESTIMATE_HEADER, "42"))
+                .andExpect(jsonPath("$._embedded.bookList.size()", is(2)))
+                .andExpect(result -> assertTrue(result.getResponse().getContentAsString().contains("page=1")))
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).getFilteredAndPaginatedBooks(
+                anyInt(), anyInt(), anyString(), anyString(), any(), any(), any(), any(), anyString());
+    }
+
+    // JUnit test for GET all books with full-text search
+    @Test
+    public void givenQuery_whenGetAllBooks_thenReturnSearchResults() throws Exception {
+        Page<Book> bookPage = new PageImpl<>(List.of(book2), PageRequest.of(0, 10), 1);
+        Mockito.when(bookService.searchBooks(anyString(), any(BookFilter.class), anyInt(), anyInt())).thenReturn(bookPage);
+
+        mockMvc.perform(get("/api/books").param("q", "rebelion orw"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookController.TOTAL_COUNT_HEADER, "1"))
+                .andExpect(jsonPath("$._embedded.bookList[0].title", is(book2.getTitle())))
+                .andDo(print());
+        Mockito.verify(bookService).searchBooks(eq("rebelion orw"), any(BookFilter.class), eq(0), eq(10));
+    }
+
+    // JUnit test for GET all books with cursor pagination
+    @Test
+    public void givenCursor_whenGetAllBooks_thenReturnBookListWithNextLink() throws Exception {
+        Mockito.when(bookService.getFilteredBooksAfterCursor(any(BookFilter.class), anyInt(), anyString(), anyString()))
+                .thenReturn(new BookCursorPage(List.of(book1, book2), "next-token"));
+
+        mockMvc.perform(get("/api/books").param("cursor", "").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.bookList.size()", is(2)))
+                .andExpect(result -> assertTrue(result.getResponse().getContentAsString().contains("cursor=next-token")))
+                .andDo(print());
+    }
+
+    // JUnit test for GET all books with cursor pagination
+    // negative scenario - the cursor was issued for another sort, or tampered with
+    @Test
+    public void givenInvalidCursor_whenGetAllBooks_thenReturnCursorError() throws Exception {
+        InvalidCursorException invalidCursor = new InvalidCursorException("stale");
+        Mockito.when(bookService.getFilteredBooksAfterCursor(any(BookFilter.class), anyInt(), anyString(), eq("stale")))
+                .thenThrow(invalidCursor);
+
+        mockMvc.perform(get("/api/books").param("cursor", "stale"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(invalidCursor.getMessage()))
+                .andDo(print());
+    }
+
+    // JUnit test for GET all books
+    // negative scenario - bad price, page and size parameters each get their own message
+    @Test
+    public void givenInvalidPriceOrPage_whenGetAllBooks_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/books").param("startPrice", "cheap"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Enter a valid numeric value to filter by book price."));
+        mockMvc.perform(get("/api/books").param("page", "-1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("The page must not be negative and the size must be at least one."));
+        Mockito.verify(bookService, Mockito.never()).getFilteredAndPaginatedBooks(anyInt(), anyInt(), any(), any(),
+                any(), any(), any(), any(), any());
+    }
+
+    // JUnit test for GET all books
+    // a failure of the database is not the client's fault
+    @Test
+    public void givenDatabaseFailure_whenGetAllBooks_thenDoNotReportBadRequest() {
+        Mockito.when(bookService.getFilteredAndPaginatedBooks(anyInt(), anyInt(), any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("database unavailable"));
+
+        Exception exception = assertThrows(Exception.class, () -> mockMvc.perform(get("/api/books")));
+        assertInstanceOf(DataAccessResourceFailureException.class, exception.getCause());
+    }
+
+    // JUnit test for GET books export
+    // CSV format, values with commas or quotes are escaped
+    @Test
+    public void givenCsvFormat_whenExportBooks_thenStreamCsvRows() throws Exception {
+        Book book = Book.builder().id(3L).title("Guerra y paz, \"tomo I\"").author("León Tolstói")
+                .price(new BigDecimal("1500.50")).releaseDate(LocalDate.of(1869, 1, 1)).build();
+        Mockito.doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(2);
+            action.accept(book1);
+            action.accept(book);
+            return null;
+        }).when(bookService).exportBooks(any(BookFilter.class), anyString(), any());
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/books/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(content().string("id,title,author,price,releaseDate,createdAt,lastModify\n" +
+                        "1,Don Quijote de la Mancha,Miguel de Cervantes,999.95," + book1.getReleaseDate() + ",,\n" +
+                        "3,\"Guerra y paz, \"\"tomo I\"\"\",León Tolstói,1500.50,1869-01-01,,\n"))
+                .andDo(print());
+    }
+
+    // JUnit test for GET books export
+    // NDJSON format, one book per line through a single generator
+    @Test
+    public void givenNdjsonFormat_whenExportBooks_thenStreamOneBookPerLine() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(2);
+            action.accept(book1);
+            action.accept(book2);
+            return null;
+        }).when(bookService).exportBooks(any(BookFilter.class), anyString(), any());
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes((objectMapper.writeValueAsString(book1) + "\n" +
+                        objectMapper.writeValueAsString(book2) + "\n").getBytes(StandardCharsets.UTF_8)))
+                .andDo(print());
+    }
+
+    // JUnit test for GET books export
+    // negative scenario - unknown format
+    @Test
+    public void givenUnknownFormat_whenExportBooks_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/books/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Supported export formats are ndjson and csv."))
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).exportBooks(any(), any(), any());
+    }
+
     // JUnit test for GET book by id
     // positive scenario - valid book id
     @Test
@@ -136,6 +402,39 @@ public class BookControllerTest {
                 .andDo(print());
     }
 
+    // JUnit test for GET book by id
+    // unconditional request - the ETag comes from the loaded book, without a version lookup
+    @Test
+    public void givenNoConditionalHeaders_whenGetBookById_thenLoadBookOnly() throws Exception {
+        Mockito.when(bookService.getBookById(anyLong())).thenReturn(Optional.of(book1));
+
+        mockMvc.perform(get("/api/books/{id}", book1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", BookVersion.of(book1).eTag()))
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).getBookVersion(anyLong());
+    }
+
+    // JUnit test for GET book by id
+    // binary representation - the HAL document encoded as CBOR
+    @Test
+    public void givenCborAccept_whenGetBookById_thenReturnCborDocument() throws Exception {
+        Mockito.when(bookService.getBookById(anyLong())).thenReturn(Optional.of(book1));
+
+        MvcResult result = mockMvc.perform(get("/api/books/{id}", book1.getId()).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", "\"" + book1.getId() + "-0-cbor\""))
+                .andExpect(vary -> assertTrue(vary.getResponse().getHeaders("Vary").contains("Accept")))
+                .andReturn();
+
+        JsonNode document = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(book1.getTitle(), document.get("title").asText());
+        assertEquals(book1.getReleaseDate().toString(), document.get("releaseDate").asText());
+        assertEquals(0, book1.getPrice().compareTo(document.get("price").decimalValue()));
+        assertTrue(document.get("_links").get("self").get("href").asText().endsWith("/api/books/" + book1.getId()));
+    }
+
     // JUnit test for GET book by id
     // negative scenario - invalid book id
     @Test
@@ -155,6 +454,144 @@ public class BookControllerTest {
                 .andDo(print());
     }
 
+    // JUnit test for GET book by id
+    // conditional request - the client's copy is current
+    @Test
+    public void givenMatchingETag_whenGetBookById_thenReturnNotModified() throws Exception {
+        BookVersion version = new BookVersion(book1.getId(), 3L, ZonedDateTime.now());
+        Mockito.when(bookService.getBookVersion(book1.getId())).thenReturn(Optional.of(version));
+
+        mockMvc.perform(get("/api/books/{id}", book1.getId())
+                        .header("If-None-Match", version.eTag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", version.eTag()))
+                .andExpect(content().string(""))
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).getBookById(anyLong());
+    }
+
+    // JUnit test for GET book by id
+    // conditional request - the client's copy was gzipped, so its tag is weak
+    @Test
+    public void givenWeakMatchingETag_whenGetBookById_thenReturnNotModified() throws Exception {
+        BookVersion version = new BookVersion(book1.getId(), 3L, ZonedDateTime.now());
+        Mockito.when(bookService.getBookVersion(book1.getId())).thenReturn(Optional.of(version));
+
+        mockMvc.perform(get("/api/books/{id}", book1.getId())
+                        .header("If-None-Match", "W/" + version.eTag()))
+                .andExpect(status().isNotModified())
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).getBookById(anyLong());
+    }
+
+    // JUnit test for GET all books
+    // conditional request - nothing was written since the client's listing
+    @Test
+    public void givenCurrentCatalogETag_whenGetAllBooks_thenReturnNotModified() throws Exception {
+        Mockito.when(bookService.getCatalogVersion()).thenReturn("abc-3");
+
+        mockMvc.perform(get("/api/books").header("If-None-Match", "\"books-abc-3\""))
+                .andExpect(status().isNotModified())
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).getFilteredAndPaginatedBooks(anyInt(), anyInt(), any(), any(),
+                any(), any(), any(), any(), any());
+    }
+
+    // JUnit test for GET all books
+    // search before the index has been loaded
+    @Test
+    public void givenIndexLoading_whenSearchBooks_thenReturnServiceUnavailable() throws Exception {
+        Mockito.when(bookService.getCatalogVersion()).thenReturn("abc-3");
+        SearchIndexLoadingException loading = new SearchIndexLoadingException();
+        Mockito.when(bookService.searchBooks(anyString(), any(BookFilter.class), anyInt(), anyInt())).thenThrow(loading);
+
+        mockMvc.perform(get("/api/books?q=orwell"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(result -> assertEquals(loading.getMessage(), result.getResponse().getContentAsString()))
+                .andDo(print());
+    }
+
+    // JUnit test for GET all books
+    // compact representation read from projections
+    @Test
+    public void givenCompactAccept_whenGetAllBooks_thenReturnFlatList() throws Exception {
+        Mockito.when(bookService.getCatalogVersion()).thenReturn("abc-3");
+        Page<BookSummary> summaryPage = new PageImpl<>(List.of(BookSummary.of(book1), BookSummary.of(book2)),
+                PageRequest.of(0, 2), 3);
+        Mockito.when(bookService.getFilteredBookSummaries(anyInt(), anyInt(), any(BookFilter.class), anyString()))
+                .thenReturn(summaryPage);
+
+        mockMvc.perform(get("/api/books?size=2").accept(BookController.COMPACT_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(BookController.COMPACT_JSON))
+                .andExpect(header().string("ETag", "\"books-abc-3-compact\""))
+                .andExpect(header().string(BookController.TOTAL_COUNT_HEADER, "3"))
+                .andExpect(jsonPath("$.links.book", is("http://localhost/api/books/{id}")))
+                .andExpect(jsonPath("$.links.next", is("http://localhost/api/books?size=2&page=1")))
+                .andExpect(jsonPath("$.books.size()", is(2)))
+                .andExpect(jsonPath("$.books[0].title", is(book1.getTitle())))
+                .andExpect(jsonPath("$.books[0]._links").doesNotExist())
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).getFilteredAndPaginatedBooks(anyInt(), anyInt(), any(), any(),
+                any(), any(), any(), any(), any());
+    }
+
+    // JUnit test for PATCH the price of the book
+    // negative scenario - the book changed since the client read it
+    @Test
+    public void givenStaleIfMatch_whenUpdatePriceBook_thenReturnPreconditionFailed() throws Exception {
+        Mockito.when(bookService.updateBookPrice(eq(1L), any(BigDecimal.class), eq(1L)))
+                .thenThrow(new OptimisticLockingFailureException("Book 1 was modified concurrently"));
+
+        mockMvc.perform(patch("/api/books/{id}", book1.getId())
+                        .header("If-Match", "\"1-1\"")
+                        .contentType(MediaType.TEXT_PLAIN_VALUE)
+                        .content("10000"))
+                .andExpect(status().isPreconditionFailed())
+                .andDo(print());
+    }
+
+    // JUnit test for PATCH the price of the book
+    // If-Match with the weak tag of a compressed CBOR copy, compared on its version
+    @Test
+    public void givenWeakCborIfMatch_whenUpdatePriceBook_thenUpdateThatVersion() throws Exception {
+        Mockito.when(bookService.updateBookPrice(eq(1L), any(BigDecimal.class), eq(1L))).thenReturn(Optional.of(book1));
+
+        mockMvc.perform(patch("/api/books/{id}", book1.getId())
+                        .header("If-Match", "W/\"1-1-cbor\"")
+                        .contentType(MediaType.TEXT_PLAIN_VALUE)
+                        .content("10000"))
+                .andExpect(status().isOk())
+                .andDo(print());
+    }
+
+    // JUnit test for PATCH the price of the book
+    // negative scenario - an If-Match tag of another book never matches
+    @Test
+    public void givenOtherBookIfMatch_whenUpdatePriceBook_thenReturnPreconditionFailed() throws Exception {
+        mockMvc.perform(patch("/api/books/{id}", book1.getId())
+                        .header("If-Match", "\"2-0\"")
+                        .contentType(MediaType.TEXT_PLAIN_VALUE)
+                        .content("10000"))
+                .andExpect(status().isPreconditionFailed())
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).updateBookPrice(anyLong(), any(), any());
+    }
+
+    // JUnit test for PATCH the price of the book
+    // negative scenario - a concurrent write won without If-Match
+    @Test
+    public void givenConcurrentWrite_whenUpdatePriceBook_thenReturnConflict() throws Exception {
+        Mockito.when(bookService.updateBookPrice(eq(1L), any(BigDecimal.class), isNull()))
+                .thenThrow(new OptimisticLockingFailureException("Book 1 was modified concurrently"));
+
+        mockMvc.perform(patch("/api/books/{id}", book1.getId())
+                        .contentType(MediaType.TEXT_PLAIN_VALUE)
+                        .content("10000"))
+                .andExpect(status().isConflict())
+                .andDo(print());
+    }
+
     // JUnit test for PUT book update
     // positive scenario - valid book id and json object in request body
     @Test
@@ -230,8 +667,10 @@ public class BookControllerTest {
         Long bookId = 1L;
         String oldPrice = book1.getPrice().toPlainString();
         String newPrice = "10000";
-        Mockito.when(bookService.getBookById(anyLong())).thenReturn(Optional.of(book1));
-        Mockito.when(bookService.updateBook(any(Book.class))).thenReturn(book1);
+        Mockito.when(bookService.updateBookPrice(eq(bookId), any(BigDecimal.class), isNull())).thenAnswer(i -> {
+            book1.setPrice(i.getArgument(1));
+            return Optional.of(book1);
+        });
 
         mockMvc.perform(patch("/api/books/{id}", bookId)
                 .contentType(MediaType.TEXT_PLAIN_VALUE)
@@ -263,7 +702,7 @@ public class BookControllerTest {
     @Test
     public void givenBookId_whenDeleteBook_thenReturnDeletedBookObject() throws Exception {
         Mockito.when(bookService.getBookById(anyLong())).thenReturn(Optional.of(book1));
-        willDoNothing().given(bookService).deleteBookById(anyLong());
+        Mockito.when(bookService.deleteBookById(anyLong(), anyLong())).thenReturn(true);
 
         mockMvc.perform(delete("/api/books/{id}", book1.getId()))
                 .andExpect(status().isOk())
@@ -273,4 +712,18 @@ public class BookControllerTest {
                 .andDo(print());
     }
 
+    // the book matched If-Match when read, and was modified before the conditional delete
+    @Test
+    public void givenConcurrentModification_whenDeleteBookWithIfMatch_thenReturnPreconditionFailed() throws Exception {
+        book1.setVersion(3L);
+        Mockito.when(bookService.getBookById(anyLong())).thenReturn(Optional.of(book1));
+        Mockito.when(bookService.deleteBookById(book1.getId(), 3L))
+                .thenThrow(new OptimisticLockingFailureException("Book " + book1.getId() + " was modified concurrently"));
+
+        mockMvc.perform(delete("/api/books/{id}", book1.getId())
+                        .header("If-Match", BookVersion.of(book1).eTag()))
+                .andExpect(status().isPreconditionFailed())
+                .andDo(print());
+    }
+
 }
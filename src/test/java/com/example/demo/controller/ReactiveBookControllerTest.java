@@ -0,0 +1,185 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ReactiveBookModelAssembler;
+import com.example.demo.error.ErrorAdvice;
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.model.Book;
+import com.example.demo.service.ReactiveBookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+
+@WebFluxTest
+@ContextConfiguration(classes = {ReactiveBookController.class, ReactiveBookModelAssembler.class, ErrorAdvice.class})
+public class ReactiveBookControllerTest {
+
+    @MockBean
+    ReactiveBookService bookService;
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    private Book book1, book2;
+
+    @BeforeEach
+    public void setUp() {
+        book1 = Book.builder()
+                .id(1L)
+                .title("Don Quijote de la Mancha")
+                .author("Miguel de Cervantes")
+                .price(new BigDecimal("999.95"))
+                .releaseDate(LocalDate.now())
+                .build();
+        book2 = Book.builder()
+                .id(2L)
+                .title("Rebelión en la granja")
+                .author("George Orwell")
+                .price(new BigDecimal("999.95"))
+                .releaseDate(LocalDate.now())
+                .build();
+    }
+
+    @Test
+    public void givenBookId_whenGetBookById_thenReturnBook() {
+        Mockito.when(bookService.getBookById(1L)).thenReturn(Mono.just(book1));
+
+        webTestClient.get().uri("/api/books/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1-0\"")
+                .expectBody()
+                .jsonPath("$.title").isEqualTo(book1.getTitle())
+                .jsonPath("$.author").isEqualTo(book1.getAuthor());
+    }
+
+    @Test
+    public void givenUnknownBookId_whenGetBookById_thenReturnNotFound() {
+        Mockito.when(bookService.getBookById(3L)).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/api/books/3")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void givenExistingBookObject_whenCreateBook_thenReturnConflict() {
+        Mockito.when(bookService.saveBookIfAbsent(any(Book.class))).thenReturn(Mono.empty());
+
+        webTestClient.post().uri("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(book1)
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    public void givenIfMatch_whenUpdateBookPrice_thenUpdateThatVersion() {
+        book1.setVersion(4L);
+        Mockito.when(bookService.updateBookPrice(eq(1L), eq(new BigDecimal("10.50")), eq(3L))).thenReturn(Mono.just(book1));
+
+        webTestClient.patch().uri("/api/books/1")
+                .header("If-Match", "\"1-3\"")
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("10.50")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1-4\"");
+    }
+
+    @Test
+    public void givenStaleIfMatch_whenUpdateBookPrice_thenReturnPreconditionFailed() {
+        Mockito.when(bookService.updateBookPrice(eq(1L), any(BigDecimal.class), eq(3L)))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("Book 1 was modified concurrently")));
+
+        webTestClient.patch().uri("/api/books/1")
+                .header("If-Match", "\"1-3\"")
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("10.50")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+    }
+
+    @Test
+    public void givenConcurrentModification_whenUpdateBook_thenReturnConflict() {
+        Mockito.when(bookService.getBookById(1L)).thenReturn(Mono.just(book1));
+        Mockito.when(bookService.updateBook(any(Book.class), isNull()))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("Book 1 was modified concurrently")));
+
+        webTestClient.put().uri("/api/books/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(book2)
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    public void givenIfMatchOfAnotherBook_whenUpdateBook_thenReturnPreconditionFailed() {
+        webTestClient.put().uri("/api/books/1")
+                .header("If-Match", "\"2-0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(book2)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        Mockito.verify(bookService, Mockito.never()).updateBook(any(), any());
+    }
+
+    @Test
+    public void givenStaleIfMatch_whenDeleteBook_thenReturnPreconditionFailed() {
+        book1.setVersion(4L);
+        Mockito.when(bookService.getBookById(1L)).thenReturn(Mono.just(book1));
+
+        webTestClient.delete().uri("/api/books/1")
+                .header("If-Match", "\"1-3\"")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        Mockito.verify(bookService, Mockito.never()).deleteBookById(anyLong(), anyLong());
+    }
+
+    @Test
+    public void givenConcurrentModification_whenDeleteBookWithIfMatch_thenReturnPreconditionFailed() {
+        book1.setVersion(3L);
+        Mockito.when(bookService.getBookById(1L)).thenReturn(Mono.just(book1));
+        Mockito.when(bookService.deleteBookById(1L, 3L))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("Book 1 was modified concurrently")));
+
+        webTestClient.delete().uri("/api/books/1")
+                .header("If-Match", "\"1-3\"")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+    }
+
+    @Test
+    public void givenNdjsonAccept_whenGetAllBooks_thenStreamBooks() {
+        Mockito.when(bookService.getFilteredBooks(any(BookFilter.class), eq(0), eq(10), eq("title:ASC")))
+                .thenReturn(Flux.just(book1, book2));
+
+        List<Book> books = webTestClient.get().uri("/api/books?sortBy=title:ASC")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Book.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(List.of(book1.getTitle(), book2.getTitle()), books.stream().map(Book::getTitle).toList());
+        Mockito.verify(bookService, Mockito.never()).countFilteredBooks(any(BookFilter.class));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.dto;
+
+import com.example.demo.persistence.model.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookJsonSerializerTest {
+
+    private static final List<Book> BOOKS = List.of(
+            Book.builder().id(1L).title("Cien años de soledad").author("Gabriel García Márquez")
+                    .price(new BigDecimal("1999.90")).releaseDate(LocalDate.of(1967, 5, 30))
+                    .createdAt(ZonedDateTime.of(2023, 3, 1, 10, 5, 0, 0, ZoneId.of("America/Argentina/Buenos_Aires")))
+                    .lastModify(ZonedDateTime.of(2023, 3, 1, 10, 5, 7, 120_000_000, ZoneOffset.UTC))
+                    .build(),
+            Book.builder().id(2L).title("\"Quoted\" \\ title\n").author("Ünïcödé 作者")
+                    .price(new BigDecimal("1E+3")).releaseDate(LocalDate.of(868, 5, 11))
+                    .createdAt(ZonedDateTime.of(LocalDateTime.of(1, 1, 1, 0, 0, 0, 1), ZoneOffset.ofHoursMinutesSeconds(5, 30, 15)))
+                    .lastModify(ZonedDateTime.of(LocalDateTime.of(2023, 12, 31, 23, 59, 59, 999_999_999), ZoneId.of("Asia/Tokyo")))
+                    .build(),
+            Book.builder().id(3L).title("Year ten thousand").author("author")
+                    .price(new BigDecimal("0.000000001")).releaseDate(LocalDate.of(10_000, 1, 1))
+                    .createdAt(ZonedDateTime.of(LocalDateTime.of(-5, 1, 1, 0, 0), ZoneOffset.UTC))
+                    .build(),
+            new Book());
+
+    @Test
+    void whenSerialize_thenSameJsonAsTheBeanSerializer() throws Exception {
+        ObjectMapper expected = defaultMapper();
+        ObjectMapper actual = defaultMapper().registerModule(bookModule());
+
+        for (Book book : BOOKS) {
+            assertEquals(expected.writeValueAsString(book), actual.writeValueAsString(book));
+        }
+    }
+
+    @Test
+    void givenDateSettings_whenSerialize_thenSameJsonAsTheBeanSerializer() throws Exception {
+        List<ObjectMapper> expected = List.of(
+                defaultMapper().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS),
+                defaultMapper().enable(SerializationFeature.WRITE_DATES_WITH_ZONE_ID),
+                defaultMapper().setTimeZone(TimeZone.getTimeZone("Europe/Madrid")));
+        List<ObjectMapper> actual = List.of(
+                defaultMapper().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).registerModule(bookModule()),
+                defaultMapper().enable(SerializationFeature.WRITE_DATES_WITH_ZONE_ID).registerModule(bookModule()),
+                defaultMapper().setTimeZone(TimeZone.getTimeZone("Europe/Madrid")).registerModule(bookModule()));
+
+        for (int i = 0; i < expected.size(); i++) {
+            for (Book book : BOOKS) {
+                assertEquals(expected.get(i).writeValueAsString(book), actual.get(i).writeValueAsString(book));
+            }
+        }
+    }
+
+    @Test
+    void givenEntityModel_whenSerialize_thenBookIsUnwrapped() throws Exception {
+        EntityModel<Book> model = EntityModel.of(BOOKS.get(0), Link.of("http://localhost/api/books/1"));
+
+        assertEquals(defaultMapper().writeValueAsString(model),
+                defaultMapper().registerModule(bookModule()).writeValueAsString(model));
+    }
+
+    private static ObjectMapper defaultMapper() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static SimpleModule bookModule() {
+        return new SimpleModule().addSerializer(Book.class, new BookJsonSerializer());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.dto;
+
+import com.example.demo.controller.BookController;
+import com.example.demo.persistence.model.Book;
+import com.example.demo.service.BookServiceImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Links;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+class BookModelAssemblerTest {
+
+    private static final ObjectMapper HAL_MAPPER = halMapper();
+
+    private final BookModelAssembler bookModelAssembler = new BookModelAssembler();
+    private MockHttpServletRequest request;
+    private List<Book> books;
+
+    @BeforeEach
+    public void setUp() {
+        request = new MockHttpServletRequest("GET", "/api/books");
+        request.setServerName("books.example.com");
+        request.setServerPort(8443);
+        request.setScheme("https");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        books = List.of(
+                Book.builder().id(7L).title("B7").author("A7").price(BigDecimal.TEN).releaseDate(LocalDate.EPOCH).build(),
+                Book.builder().id(1234567890123L).title("B8").author("A8").price(BigDecimal.ONE).releaseDate(LocalDate.EPOCH).build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    // the links resolved per book also carry an affordance for it, which HAL does not render
+    @Test
+    void whenToModel_thenHalEqualsThatOfLinksResolvedPerBook() throws Exception {
+        for (Book book : books) {
+            assertEquals(hal(EntityModel.of(book, linksResolvedPerBook(book))), hal(bookModelAssembler.toModel(book)));
+        }
+    }
+
+    @Test
+    void whenToCollectionModel_thenHalEqualsThatOfLinksResolvedPerBook() throws Exception {
+        CollectionModel<EntityModel<Book>> collectionModel = bookModelAssembler.toCollectionModel(books);
+
+        assertEquals(Links.of(listingLink().withSelfRel()), collectionModel.getLinks());
+        assertEquals(hal(CollectionModel.of(books.stream().map(book -> EntityModel.of(book, linksResolvedPerBook(book))).toList(),
+                listingLink().withSelfRel())), hal(collectionModel));
+    }
+
+    @Test
+    void givenAnotherRequest_whenToModel_thenLinksFollowThatRequest() {
+        bookModelAssembler.toModel(books.get(0));
+
+        MockHttpServletRequest other = new MockHttpServletRequest("GET", "/api/books");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(other));
+
+        assertEquals("http://localhost/api/books/7", bookModelAssembler.toModel(books.get(0)).getRequiredLink("self").getHref());
+    }
+
+    private static ObjectMapper halMapper() {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules().registerModule(new Jackson2HalModule());
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(new DefaultLinkRelationProvider(),
+                CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+
+    private static String hal(Object model) throws JsonProcessingException {
+        return HAL_MAPPER.writeValueAsString(model);
+    }
+
+    private static Links linksResolvedPerBook(Book book) {
+        return Links.of(linkTo(methodOn(BookController.class).getBookById(book.getId(), null)).withSelfRel(),
+                listingLink().withRel("books"));
+    }
+
+    private static Link listingLink() {
+        return linkTo(methodOn(BookController.class).getAllBooks(0, BookServiceImpl.getPaginationValue(), "", "", "", "",
+                LocalDate.MIN, LocalDate.MAX, "", null, true, null, null)).withSelfRel();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.persistence.dao;
+
+import com.example.demo.persistence.model.Book;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Upgrades a catalog created by V1, whose ids came from the identity column, and checks that the
+ * ids drawn from the sequence afterwards do not collide with its rows.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:upgrade;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BookMigrationTest {
+
+    private static final int EXISTING_ROWS = 120;
+
+    @TestConfiguration
+    static class UpgradeConfiguration {
+
+        @Bean
+        FlywayMigrationStrategy upgradeFromIdentityIds() {
+            return flyway -> {
+                Flyway.configure().configuration(flyway.getConfiguration())
+                        .target(MigrationVersion.fromVersion("1")).load().migrate();
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(flyway.getConfiguration().getDataSource());
+                for (int i = 1; i <= EXISTING_ROWS; i++) {
+                    jdbcTemplate.update("INSERT INTO books (title, author, price, release_date) VALUES (?, ?, ?, ?)",
+                            "Existing " + i, "author", BigDecimal.ONE, LocalDate.of(2000, 1, 1));
+                }
+                flyway.migrate();
+            };
+        }
+    }
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Test
+    void givenRowsBeforeTheSequence_whenInserting_thenNewIdsFollowThem() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            books.add(Book.builder().title("New " + i).author("author").price(BigDecimal.ONE)
+                    .releaseDate(LocalDate.now()).build());
+        }
+        bookRepository.persistAll(books);
+        assertTrue(bookRepository.insertIfAbsent(Book.builder().title("Guarded").author("author")
+                .price(BigDecimal.ONE).releaseDate(LocalDate.now()).build()));
+        bookRepository.flush();
+
+        assertEquals(EXISTING_ROWS + 61, bookRepository.count());
+        books.forEach(book -> assertTrue(book.getId() > EXISTING_ROWS, "id " + book.getId()));
+    }
+}
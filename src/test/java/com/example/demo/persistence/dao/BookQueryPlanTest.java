@@ -0,0 +1,159 @@
+package com.example.demo.persistence.dao;
+
+import com.example.demo.persistence.model.Book;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs EXPLAIN on the SQL Hibernate generates for each repository query, captured as it is sent,
+ * and fails when a query stops using the index created for it in the migrations.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.demo.persistence.dao.BookQueryPlanTest$CapturingStatementInspector")
+class BookQueryPlanTest {
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            books.add(Book.builder().title("title" + i).author("author" + i % 20).price(BigDecimal.valueOf(i * 10L))
+                    .releaseDate(LocalDate.of(1900, 1, 1).plusDays(i * 100L)).build());
+        }
+        bookRepository.saveAllAndFlush(books);
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    /**
+     * The select statements sent while running {@code query}. Their parameters are left unset,
+     * which EXPLAIN allows.
+     */
+    private List<String> selects(Runnable query) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        query.run();
+        List<String> selects = CapturingStatementInspector.STATEMENTS.stream()
+                .filter(sql -> sql.stripLeading().toLowerCase().startsWith("select"))
+                .toList();
+        assertFalse(selects.isEmpty(), "No select statement was captured");
+        return selects;
+    }
+
+    private void assertUsesIndex(Set<String> indexes, String query) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class).toUpperCase();
+
+        assertTrue(indexes.stream().anyMatch(index -> plan.contains(index.toUpperCase())),
+                () -> "Expected one of " + indexes + " in plan: " + plan);
+        assertFalse(plan.contains("TABLESCAN"), () -> "Unexpected table scan in plan: " + plan);
+    }
+
+    private void assertUsesIndex(String index, String query) {
+        assertUsesIndex(Set.of(index), query);
+    }
+
+    @Test
+    void findByTitle() {
+        selects(() -> bookRepository.findByTitle("title7"))
+                .forEach(sql -> assertUsesIndex("ux_books_title_author_release_date", sql));
+    }
+
+    @Test
+    void findByAuthor() {
+        selects(() -> bookRepository.findByAuthor("author7"))
+                .forEach(sql -> assertUsesIndex("ix_books_author", sql));
+    }
+
+    @Test
+    void findByTitleAndAuthorAndReleaseDate() {
+        selects(() -> bookRepository.findByTitleAndAuthorAndReleaseDate("title7", "author7", LocalDate.of(1901, 12, 2)))
+                .forEach(sql -> assertUsesIndex("ux_books_title_author_release_date", sql));
+    }
+
+    @Test
+    void findKeysByTitleIn() {
+        selects(() -> bookRepository.findKeysByTitleIn(List.of("title7", "title8")))
+                .forEach(sql -> assertUsesIndex("ux_books_title_author_release_date", sql));
+    }
+
+    @Test
+    void findByReleaseDateBetween() {
+        selects(() -> bookRepository.findByReleaseDateBetween(LocalDate.of(1950, 1, 1), LocalDate.of(1951, 1, 1)))
+                .forEach(sql -> assertUsesIndex("ix_books_release_date", sql));
+    }
+
+    @Test
+    void findVersionById() {
+        selects(() -> bookRepository.findVersionById(7L))
+                .forEach(sql -> assertUsesIndex("PRIMARY_KEY", sql));
+    }
+
+    // the %LIKE% predicates cannot use an index, the price and release date ranges can
+    @Test
+    void findFilteredListing() {
+        List<String> selects = selects(() -> bookRepository
+                .findByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                        "title", "author", BigDecimal.valueOf(100), BigDecimal.valueOf(150),
+                        LocalDate.of(1900, 1, 1), LocalDate.of(2100, 1, 1), PageRequest.of(0, 2, Sort.by("title"))));
+
+        assertEquals(2, selects.size(), "Expected the page and its count query");
+        selects.forEach(sql -> assertUsesIndex(Set.of("ix_books_price", "ix_books_release_date"), sql));
+    }
+
+    // in id order the primary key both seeks to the cursor and yields the rows sorted; other sort
+    // keys are still filtered through the range indexes and sorted, only the offset is avoided
+    @Test
+    void findFilteredAfter() {
+        BookFilter filter = new BookFilter("title", "author", BigDecimal.valueOf(100), BigDecimal.valueOf(150),
+                LocalDate.of(1900, 1, 1), LocalDate.of(2100, 1, 1));
+        Book last = bookRepository.findByTitle("title10").get(0);
+        Sort sort = Sort.by("id");
+
+        selects(() -> bookRepository.findFilteredAfter(filter, sort, BookCursor.of(last, sort), 3))
+                .forEach(sql -> {
+                    assertUsesIndex("PRIMARY_KEY", sql);
+                    String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).toUpperCase();
+                    assertTrue(plan.contains("INDEX SORTED"), () -> "Expected an index-sorted scan in plan: " + plan);
+                });
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -8,13 +8,23 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,6 +36,10 @@ class BookRepositoryTest {
     @Autowired
     BookRepository bookRepository;
 
+    // reads past the persistence context, which the JDBC updates bypass
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     @Test
     void findByTitle() {
         String title = "Same title";
@@ -126,4 +140,238 @@ class BookRepositoryTest {
                         book.getReleaseDate().isBefore(releaseDateTo)
         ));
     }
-}
\ No newline at end of file
+
+    @Test
+    void findFilteredAfter() {
+        BookFilter filter = new BookFilter("", "", BigDecimal.ZERO, new BigDecimal("1000000"), LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31));
+        Sort sort = Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id"));
+
+        for (int i = 0; i < 5; i++) {
+            bookRepository.save(Book.builder().title("title" + i).author("author").price(new BigDecimal(i % 2)).releaseDate(LocalDate.now()).build());
+        }
+
+        List<Book> firstPage = bookRepository.findFilteredAfter(filter, sort, null, 3);
+        BookCursor cursor = BookCursor.decode(BookCursor.of(firstPage.get(2), sort).encode(sort), sort);
+        List<Book> secondPage = bookRepository.findFilteredAfter(filter, sort, cursor, 3);
+
+        assertEquals(3, firstPage.size());
+        assertEquals(2, secondPage.size());
+        assertTrue(firstPage.get(0).getId() < firstPage.get(1).getId());
+        assertEquals(0, BigDecimal.ONE.compareTo(firstPage.get(1).getPrice()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(firstPage.get(2).getPrice()));
+        secondPage.forEach(book -> {
+            assertFalse(firstPage.contains(book));
+            assertEquals(0, BigDecimal.ZERO.compareTo(book.getPrice()));
+            assertTrue(book.getId() > firstPage.get(2).getId());
+        });
+    }
+
+    @Test
+    void readByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween() {
+        for (int i = 0; i < 3; i++) {
+            bookRepository.save(Book.builder().title("Slice title " + i).author("author").price(BigDecimal.TEN).releaseDate(LocalDate.now()).build());
+        }
+
+        Slice<Book> firstSlice = bookRepository.readByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                "slice", "", BigDecimal.ONE, new BigDecimal("100"), LocalDate.EPOCH, LocalDate.now(), PageRequest.of(0, 2, Sort.by("title")));
+        Slice<Book> lastSlice = bookRepository.readByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                "slice", "", BigDecimal.ONE, new BigDecimal("100"), LocalDate.EPOCH, LocalDate.now(), PageRequest.of(1, 2, Sort.by("title")));
+
+        assertEquals(2, firstSlice.getNumberOfElements());
+        assertTrue(firstSlice.hasNext());
+        assertEquals(1, lastSlice.getNumberOfElements());
+        assertFalse(lastSlice.hasNext());
+        assertEquals(3, bookRepository.countByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                "slice", "", BigDecimal.ONE, new BigDecimal("100"), LocalDate.EPOCH, LocalDate.now()));
+    }
+
+    @Test
+    void findSummariesByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween() {
+        for (int i = 0; i < 3; i++) {
+            bookRepository.save(Book.builder().title("Summary title " + i).author("author").price(BigDecimal.TEN).releaseDate(LocalDate.now()).build());
+        }
+        bookRepository.flush();
+
+        Page<BookSummary> page = bookRepository.findSummariesByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                "summary", "", BigDecimal.ONE, new BigDecimal("100"), LocalDate.EPOCH, LocalDate.now(),
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "title")));
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of("Summary title 2", "Summary title 1"), page.map(BookSummary::title).getContent());
+        assertEquals(0, BigDecimal.TEN.compareTo(page.getContent().get(0).price()));
+    }
+
+    @Test
+    void insertIfAbsent() {
+        Book book = Book.builder().title("Upsert title").author("author").price(BigDecimal.ONE).releaseDate(LocalDate.EPOCH).build();
+        Book duplicate = Book.builder().title("Upsert title").author("author").price(BigDecimal.TEN).releaseDate(LocalDate.EPOCH).build();
+
+        assertTrue(bookRepository.insertIfAbsent(book));
+        assertNotNull(book.getId());
+        assertFalse(bookRepository.insertIfAbsent(duplicate));
+        assertNull(duplicate.getId());
+        assertEquals(1, bookRepository.findByTitle("Upsert title").size());
+    }
+
+    // runs outside the test transaction so that every thread commits on its own
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void insertIfAbsent_Concurrently() throws Exception {
+        int threads = 32, distinctBooks = 16, attemptsPerBook = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < distinctBooks * attemptsPerBook; i++) {
+                String title = "Concurrent title " + i % distinctBooks;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return bookRepository.insertIfAbsent(Book.builder().title(title).author("author")
+                            .price(BigDecimal.ONE).releaseDate(LocalDate.EPOCH).build());
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    created++;
+                }
+            }
+
+            assertEquals(distinctBooks, created);
+            for (int i = 0; i < distinctBooks; i++) {
+                assertEquals(1, bookRepository.findByTitle("Concurrent title " + i).size());
+            }
+        } finally {
+            executor.shutdownNow();
+            bookRepository.deleteAllInBatch(bookRepository.findAll().stream()
+                    .filter(book -> book.getTitle().startsWith("Concurrent title ")).toList());
+        }
+    }
+
+    @Test
+    void updatePrice_StaleVersion() {
+        Book book = bookRepository.saveAndFlush(Book.builder().title("Versioned title").author("author")
+                .price(BigDecimal.ONE).releaseDate(LocalDate.now()).build());
+        long version = book.getVersion();
+
+        assertEquals(1, bookRepository.updatePrice(book.getId(), BigDecimal.TEN, ZonedDateTime.now(), version));
+        assertEquals(0, bookRepository.updatePrice(book.getId(), BigDecimal.ONE, ZonedDateTime.now(), version));
+        assertEquals(version + 1, bookRepository.findVersionById(book.getId()).get().version());
+    }
+
+    @Test
+    void deleteByIdAndVersion_StaleVersion() {
+        Book book = bookRepository.saveAndFlush(Book.builder().title("Deleted title").author("author")
+                .price(BigDecimal.ONE).releaseDate(LocalDate.now()).build());
+        long version = book.getVersion();
+        bookRepository.updatePrice(book.getId(), BigDecimal.TEN, ZonedDateTime.now(), version);
+
+        assertEquals(0, bookRepository.deleteByIdAndVersion(book.getId(), version));
+        assertTrue(bookRepository.existsById(book.getId()));
+        assertEquals(1, bookRepository.deleteByIdAndVersion(book.getId(), version + 1));
+        assertFalse(bookRepository.existsById(book.getId()));
+    }
+
+    // every thread retries its read-increment-write until the conditional update wins, so no
+    // increment may be lost however the threads interleave
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void updatePrice_Concurrently() throws Exception {
+        int threads = 16, incrementsPerThread = 50;
+        Book book = bookRepository.save(Book.builder().title("Concurrent price title").author("author")
+                .price(BigDecimal.ZERO).releaseDate(LocalDate.EPOCH).build());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < incrementsPerThread; i++) {
+                        Book current;
+                        do {
+                            current = bookRepository.findById(book.getId()).orElseThrow();
+                        } while (bookRepository.updatePrice(current.getId(), current.getPrice().add(BigDecimal.ONE),
+                                ZonedDateTime.now(), current.getVersion()) == 0);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+
+            Book updated = bookRepository.findById(book.getId()).orElseThrow();
+            assertEquals(0, BigDecimal.valueOf(threads * incrementsPerThread).compareTo(updated.getPrice()));
+            assertEquals(threads * incrementsPerThread, updated.getVersion());
+        } finally {
+            executor.shutdownNow();
+            bookRepository.deleteById(book.getId());
+        }
+    }
+
+    @Test
+    void updatePrices() {
+        Book first = bookRepository.save(Book.builder().title("Reprice title 1").author("author")
+                .price(BigDecimal.ONE).releaseDate(LocalDate.now()).build());
+        Book second = bookRepository.save(Book.builder().title("Reprice title 2").author("author")
+                .price(BigDecimal.ONE).releaseDate(LocalDate.now()).build());
+        bookRepository.flush();
+        long missingId = second.getId() + 1000;
+
+        Map<Long, BigDecimal> prices = new LinkedHashMap<>();
+        prices.put(first.getId(), new BigDecimal("10.50"));
+        prices.put(missingId, BigDecimal.TEN);
+        prices.put(second.getId(), new BigDecimal("20.00"));
+
+        assertEquals(Set.of(missingId), bookRepository.updatePrices(prices, ZonedDateTime.now()));
+        assertEquals(Set.of(), bookRepository.updatePrices(Map.of(first.getId(), BigDecimal.ONE), ZonedDateTime.now()));
+        assertEquals(0, BigDecimal.ONE.compareTo(priceOf(first.getId())));
+        assertEquals(0, new BigDecimal("20.00").compareTo(priceOf(second.getId())));
+        assertEquals(first.getVersion() + 2, bookRepository.findVersionById(first.getId()).get().version());
+    }
+
+    @Test
+    void adjustPrices() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(bookRepository.save(Book.builder().title("Adjust title " + i).author("Adjusted author")
+                    .price(new BigDecimal("10.00")).releaseDate(LocalDate.now()).build()).getId());
+        }
+        Long otherAuthor = bookRepository.save(Book.builder().title("Adjust title 3").author("other author")
+                .price(new BigDecimal("10.00")).releaseDate(LocalDate.now()).build()).getId();
+        bookRepository.flush();
+
+        assertEquals(ids.subList(0, 2), bookRepository.findIdsByAuthorAfter("Adjusted author", Long.MIN_VALUE, 2));
+        assertEquals(ids.subList(2, 3), bookRepository.findIdsByAuthorAfter("Adjusted author", ids.get(1), 2));
+
+        List<Long> chunk = List.of(ids.get(0), ids.get(1), otherAuthor);
+        Map<Long, BigDecimal> prices = bookRepository.adjustPrices(chunk, "Adjusted author", new BigDecimal("1.055"), ZonedDateTime.now());
+
+        assertEquals(Map.of(ids.get(0), new BigDecimal("10.55"), ids.get(1), new BigDecimal("10.55")), prices);
+        assertEquals(0, BigDecimal.TEN.compareTo(priceOf(otherAuthor)));
+        assertEquals(0, BigDecimal.TEN.compareTo(priceOf(ids.get(2))));
+    }
+
+    @Test
+    void forEachFiltered() {
+        BookFilter filter = new BookFilter("export", "", BigDecimal.ZERO, new BigDecimal("1000000"), LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31));
+        for (int i = 0; i < 5; i++) {
+            bookRepository.save(Book.builder().title("Export title " + i).author("author").price(BigDecimal.ONE).releaseDate(LocalDate.now()).build());
+        }
+        bookRepository.save(Book.builder().title("other title").author("author").price(BigDecimal.ONE).releaseDate(LocalDate.now()).build());
+        bookRepository.flush();
+
+        List<String> titles = new ArrayList<>();
+        bookRepository.forEachFiltered(filter, Sort.by(Sort.Direction.DESC, "title"), 2, book -> titles.add(book.getTitle()));
+
+        assertEquals(List.of("Export title 4", "Export title 3", "Export title 2", "Export title 1", "Export title 0"), titles);
+    }
+
+    private BigDecimal priceOf(Long id) {
+        return jdbcTemplate.queryForObject("SELECT price FROM books WHERE id = ?", BigDecimal.class, id);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.search;
+
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex bookSearchIndex;
+    private BookFilter anyBook;
+
+    @BeforeEach
+    public void setUp() {
+        bookSearchIndex = new BookSearchIndex();
+        anyBook = new BookFilter("", "", BigDecimal.ZERO, new BigDecimal("1000000"), LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31));
+
+        bookSearchIndex.index(Book.builder().id(1L).title("Cien años de soledad").author("Gabriel García Márquez")
+                .price(new BigDecimal("2000")).releaseDate(LocalDate.of(1967, 5, 30)).build());
+        bookSearchIndex.index(Book.builder().id(2L).title("El amor en los tiempos del cólera").author("Gabriel García Márquez")
+                .price(new BigDecimal("1500")).releaseDate(LocalDate.of(1985, 1, 1)).build());
+        bookSearchIndex.index(Book.builder().id(3L).title("Gabriela, clavo y canela").author("Jorge Amado")
+                .price(new BigDecimal("1000")).releaseDate(LocalDate.of(1958, 1, 1)).build());
+    }
+
+    @Test
+    void whenSearchByPrefix_thenMatchAllTermsIgnoringCaseAndAccents() {
+        assertEquals(List.of(2L), bookSearchIndex.search("COLE garc", anyBook));
+        assertEquals(List.of(1L), bookSearchIndex.search("anos soled", anyBook));
+        assertTrue(bookSearchIndex.search("soledad amado", anyBook).isEmpty());
+    }
+
+    @Test
+    void whenSearch_thenRankByRelevance() {
+        // a rare title term outranks a common author term, ties are ordered by id
+        assertEquals(List.of(3L, 1L, 2L), bookSearchIndex.search("gabriel", anyBook));
+        assertEquals(List.of(3L, 1L, 2L), bookSearchIndex.search("gabri", anyBook));
+    }
+
+    @Test
+    void whenSearchWithFilter_thenApplyPriceAndReleaseDateRanges() {
+        BookFilter filter = new BookFilter("", "", new BigDecimal("1200"), new BigDecimal("5000"), LocalDate.of(1960, 1, 1), LocalDate.of(1980, 1, 1));
+
+        assertEquals(List.of(1L), bookSearchIndex.search("gabriel", filter));
+    }
+
+    @Test
+    void whenUpdateOrRemove_thenIndexIsKeptInSync() {
+        bookSearchIndex.index(Book.builder().id(1L).title("Crónica de una muerte anunciada").author("Gabriel García Márquez")
+                .price(new BigDecimal("2000")).releaseDate(LocalDate.of(1981, 1, 1)).build());
+        bookSearchIndex.remove(2L);
+
+        assertTrue(bookSearchIndex.search("soledad", anyBook).isEmpty());
+        assertEquals(List.of(1L), bookSearchIndex.search("cronica", anyBook));
+        assertEquals(List.of(1L), bookSearchIndex.search("marquez", anyBook));
+        assertEquals(2, bookSearchIndex.size());
+    }
+
+    @Test
+    void whenRebuilding_thenSearchTheOldContentsAndKeepTheWritesMadeMeanwhile() {
+        Book oldRow = Book.builder().id(4L).title("Doña Flor y sus dos maridos").author("Jorge Amado")
+                .price(new BigDecimal("800")).releaseDate(LocalDate.of(1966, 1, 1)).build();
+        assertFalse(bookSearchIndex.isLoaded());
+
+        bookSearchIndex.rebuild(rows -> {
+            rows.accept(Book.builder().id(3L).title("Gabriela, clavo y canela").author("Jorge Amado")
+                    .price(new BigDecimal("1000")).releaseDate(LocalDate.of(1958, 1, 1)).build());
+            // a save and a delete commit while the table is read, after their rows were read
+            bookSearchIndex.index(Book.builder().id(4L).title("Tieta de Agreste").author("Jorge Amado")
+                    .price(new BigDecimal("900")).releaseDate(LocalDate.of(1977, 1, 1)).build());
+            bookSearchIndex.remove(3L);
+            assertEquals(List.of(1L), bookSearchIndex.search("soledad", anyBook));
+            rows.accept(oldRow);
+        });
+
+        assertTrue(bookSearchIndex.isLoaded());
+        assertTrue(bookSearchIndex.search("soledad", anyBook).isEmpty());
+        assertTrue(bookSearchIndex.search("canela", anyBook).isEmpty());
+        assertTrue(bookSearchIndex.search("flor", anyBook).isEmpty());
+        assertEquals(List.of(4L), bookSearchIndex.search("tieta", anyBook));
+        assertEquals(1, bookSearchIndex.size());
+    }
+
+    @Test
+    void whenRebuildFails_thenKeepTheCurrentContents() {
+        assertThrows(IllegalStateException.class, () -> bookSearchIndex.rebuild(rows -> {
+            throw new IllegalStateException("table unavailable");
+        }));
+
+        assertFalse(bookSearchIndex.isLoaded());
+        assertEquals(List.of(1L), bookSearchIndex.search("soledad", anyBook));
+    }
+}
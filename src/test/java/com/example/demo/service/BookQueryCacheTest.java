@@ -0,0 +1,107 @@
+package com.example.demo.service;
+
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookQueryCacheTest {
+
+    private BookQueryCache bookQueryCache;
+    private AtomicInteger queries;
+    private Page<Book> bookPage;
+
+    @BeforeEach
+    public void setUp() {
+        bookQueryCache = new BookQueryCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        queries = new AtomicInteger();
+        bookPage = new PageImpl<>(List.of(Book.builder().id(1L).title("B1").author("A1").build()));
+    }
+
+    private Page<Book> query() {
+        queries.incrementAndGet();
+        return bookPage;
+    }
+
+    private BookFilter filter(String title, String startPrice) {
+        return new BookFilter(title, "", new BigDecimal(startPrice), new BigDecimal("1000000"), LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31));
+    }
+
+    @Test
+    void whenEquivalentFilters_thenSameEntry() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Order.asc("title"), Sort.Order.desc("price")));
+
+        bookQueryCache.getPage(filter("Quijote", "0"), pageable, this::query);
+        bookQueryCache.getPage(filter("quijote", "0.00"), PageRequest.of(0, 10, Sort.by(Sort.Order.asc("title"), Sort.Order.desc("price"))), this::query);
+
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void whenInvalidated_thenQueryAgain() {
+        Pageable pageable = PageRequest.of(0, 10);
+
+        bookQueryCache.getPage(filter("", "0"), pageable, this::query);
+        bookQueryCache.invalidateAll();
+        bookQueryCache.getPage(filter("", "0"), pageable, this::query);
+        bookQueryCache.getPage(filter("", "0"), pageable, this::query);
+
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void whenLoaderFails_thenNothingIsCached() {
+        Pageable pageable = PageRequest.of(0, 10);
+
+        assertThrows(IllegalStateException.class, () -> bookQueryCache.getPage(filter("", "0"), pageable, () -> {
+            throw new IllegalStateException("database down");
+        }));
+        bookQueryCache.getPage(filter("", "0"), pageable, this::query);
+
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void whenConcurrentMisses_thenSingleQuery() throws Exception {
+        int threads = 16;
+        Pageable pageable = PageRequest.of(0, 10);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Page<Book>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return bookQueryCache.getPage(filter("", "0"), pageable, () -> {
+                        try {
+                            Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return query();
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Page<Book>> result : results) {
+                assertSame(bookPage, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, queries.get());
+    }
+}
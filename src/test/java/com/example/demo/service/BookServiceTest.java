@@ -1,6 +1,12 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.BookImportResult;
+import com.example.demo.dto.BookImportSummary;
+import com.example.demo.dto.BookPriceChange;
+import com.example.demo.dto.BookRepriceSummary;
+import com.example.demo.persistence.dao.BookKey;
 import com.example.demo.persistence.dao.BookRepository;
+import com.example.demo.persistence.dao.BookVersion;
 import com.example.demo.persistence.model.Book;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,12 +17,17 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -29,6 +40,9 @@ public class BookServiceTest {
     @MockBean
     private BookRepository bookRepository;
 
+    @Autowired
+    private BookEntityCache bookEntityCache;
+
     private List<Book> bookList;
     private LocalDate localDate;
 
@@ -42,6 +56,7 @@ public class BookServiceTest {
                 Book.builder().id(4L).title("B4").author("A4").releaseDate(localDate).price(BigDecimal.valueOf(4000)).build()
         ));
         when(bookRepository.findAll()).thenReturn(bookList);
+        bookEntityCache.clear();
     }
 
     @Test
@@ -75,6 +90,44 @@ public class BookServiceTest {
         verify(bookRepository).findById( anyLong() );
     }
 
+    @Test
+    void testGetBookById_Cached() {
+        long id = 3L;
+        when(bookRepository.findById(id)).thenReturn( Optional.of(bookList.get(2)) );
+        Optional<Book> firstLookup = bookService.getBookById(id);
+        firstLookup.get().setTitle("modified by the caller");
+        Optional<Book> secondLookup = bookService.getBookById(id);
+
+        assertEquals("B3", secondLookup.get().getTitle());
+        assertNotSame(firstLookup.get(), secondLookup.get());
+        verify(bookRepository, times(1)).findById( anyLong() );
+    }
+
+    @Test
+    void testGetBookVersion() {
+        Book book = bookList.get(1);
+        book.setLastModify(ZonedDateTime.now());
+        when(bookRepository.findVersionById(2L)).thenReturn( Optional.of(BookVersion.of(book)) );
+        when(bookRepository.findById(2L)).thenReturn( Optional.of(book) );
+
+        assertEquals(BookVersion.of(book), bookService.getBookVersion(2L).get());
+        bookService.getBookById(2L);
+        assertEquals(BookVersion.of(book).eTag(), bookService.getBookVersion(2L).get().eTag());
+        verify(bookRepository, times(1)).findVersionById( anyLong() );
+    }
+
+    @Test
+    void testGetBookById_EvictedOnDelete() {
+        long id = 3L;
+        when(bookRepository.findById(id)).thenReturn( Optional.of(bookList.get(2)) );
+        bookService.getBookById(id);
+        bookService.deleteBookById(id);
+        when(bookRepository.findById(id)).thenReturn( Optional.empty() );
+
+        assertTrue(bookService.getBookById(id).isEmpty());
+        verify(bookRepository, times(2)).findById( anyLong() );
+    }
+
     @Test
     void testSaveBook() {
         long id = Long.valueOf(bookList.size()) + 1;
@@ -160,6 +213,51 @@ public class BookServiceTest {
         verify(bookRepository).findByTitleAndAuthorAndReleaseDate ( anyString(), anyString(), any(LocalDate.class) );
     }
 
+    @Test
+    void testImportBooks() {
+        Book existing = Book.builder().title("B1").author("A1").releaseDate(localDate).price(BigDecimal.ONE).build();
+        Book created = Book.builder().title("B9").author("A9").releaseDate(localDate).price(BigDecimal.TEN).build();
+        Book repeated = Book.builder().title("B9").author("A9").releaseDate(localDate).price(BigDecimal.TEN).build();
+        Book invalid = Book.builder().title(" ").author("A9").releaseDate(localDate).price(BigDecimal.TEN).build();
+        when(bookRepository.findKeysByTitleIn(anyCollection())).thenReturn(List.of(BookKey.of(existing)));
+        doAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            books.forEach(book -> book.setId(100L));
+            return null;
+        }).when(bookRepository).persistAll(anyList());
+
+        BookImportSummary summary = bookService.importBooks(List.of(existing, created, repeated, invalid).iterator());
+
+        assertEquals(1, summary.created());
+        assertEquals(2, summary.duplicate());
+        assertEquals(1, summary.invalid());
+        assertEquals(List.of(BookImportResult.Status.DUPLICATE, BookImportResult.Status.CREATED,
+                BookImportResult.Status.DUPLICATE, BookImportResult.Status.INVALID),
+                summary.results().stream().map(BookImportResult::status).toList());
+        assertEquals(100L, summary.results().get(1).id());
+        verify(bookRepository).persistAll(List.of(created));
+    }
+
+    @Test
+    void testRepriceBooks() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(bookList.get(0)));
+        bookService.getBookById(1L);
+        when(bookRepository.updatePrices(anyMap(), any(ZonedDateTime.class))).thenReturn(Set.of(9L));
+
+        BookRepriceSummary summary = bookService.repriceBooks(List.of(
+                new BookPriceChange(1L, BigDecimal.ONE),
+                new BookPriceChange(9L, BigDecimal.TEN),
+                new BookPriceChange(2L, BigDecimal.valueOf(-1)),
+                new BookPriceChange(1L, new BigDecimal("1.005"))).iterator());
+
+        assertEquals(1, summary.updated());
+        assertEquals(List.of(9L), summary.missing());
+        assertEquals(1, summary.invalid().size());
+        assertEquals(2, summary.invalid().get(0).index());
+        verify(bookRepository).updatePrices(eq(Map.of(1L, new BigDecimal("1.01"), 9L, new BigDecimal("10.00"))), any(ZonedDateTime.class));
+        assertTrue(bookEntityCache.getIfPresent(1L).isEmpty());
+    }
+
     @Test
     void testFindByTitle() {
         when(bookRepository.findByTitle( anyString() )).thenReturn(bookList.stream().filter(book -> "B1".equals(book.getTitle())).collect(Collectors.toList()) );
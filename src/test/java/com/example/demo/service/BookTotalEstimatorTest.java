@@ -0,0 +1,82 @@
+package com.example.demo.service;
+
+import com.example.demo.persistence.dao.BookFilter;
+import com.example.demo.persistence.dao.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.OptionalLong;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BookTotalEstimatorTest {
+
+    private final BookFilter filter = new BookFilter("", "", BigDecimal.ZERO, new BigDecimal("1000000"),
+            LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31));
+
+    private BookTotalEstimator bookTotalEstimator;
+    private BookRepository bookRepository;
+    private Queue<Runnable> counts;
+
+    @BeforeEach
+    public void setUp() {
+        bookRepository = mock(BookRepository.class);
+        counts = new ArrayDeque<>();
+        bookTotalEstimator = new BookTotalEstimator();
+        ReflectionTestUtils.setField(bookTotalEstimator, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(bookTotalEstimator, "taskExecutor", (TaskExecutor) counts::add);
+        ReflectionTestUtils.setField(bookTotalEstimator, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(bookTotalEstimator, "maxEntries", 100);
+    }
+
+    private void total(long total) {
+        when(bookRepository.countByTitleContainingIgnoreCaseAndAuthorContainingIgnoreCaseAndPriceBetweenAndReleaseDateBetween(
+                anyString(), anyString(), any(), any(), any(), any())).thenReturn(total);
+    }
+
+    @Test
+    void givenCountedTotal_whenInvalidated_thenServeItWhileRefreshing() {
+        total(10);
+        bookTotalEstimator.estimate(filter);
+        counts.poll().run();
+
+        bookTotalEstimator.invalidateAll();
+        total(11);
+
+        assertEquals(OptionalLong.of(10), bookTotalEstimator.estimate(filter));
+        assertEquals(1, counts.size());
+        counts.poll().run();
+        assertEquals(OptionalLong.of(11), bookTotalEstimator.estimate(filter));
+        assertTrue(counts.isEmpty());
+    }
+
+    @Test
+    void givenCountInFlight_whenInvalidated_thenDiscardIt() {
+        total(10);
+        bookTotalEstimator.estimate(filter);
+        counts.poll().run();
+        bookTotalEstimator.invalidateAll();
+        bookTotalEstimator.estimate(filter);
+        Runnable inFlight = counts.poll();
+
+        // another write commits after that count read the table
+        total(11);
+        bookTotalEstimator.invalidateAll();
+        inFlight.run();
+
+        assertEquals(OptionalLong.of(10), bookTotalEstimator.estimate(filter));
+        total(12);
+        counts.poll().run();
+        assertEquals(OptionalLong.of(12), bookTotalEstimator.estimate(filter));
+    }
+}
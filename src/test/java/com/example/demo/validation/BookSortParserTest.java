@@ -0,0 +1,62 @@
+package com.example.demo.validation;
+
+import com.example.demo.error.InvalidSortException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSortParserTest {
+
+    @Test
+    void testParseKeepsPriorityOrder() {
+        Sort sort = BookSortParser.parse("title:desc, author:ASC, price:DESC, releaseDate:asc");
+
+        assertEquals(Sort.by(Sort.Order.desc("title"), Sort.Order.asc("author"),
+                Sort.Order.desc("price"), Sort.Order.asc("releaseDate")), sort);
+    }
+
+    @Test
+    void testParseBlankIsUnsorted() {
+        assertTrue(BookSortParser.parse("").isUnsorted());
+        assertTrue(BookSortParser.parse("   ").isUnsorted());
+        assertTrue(BookSortParser.parse(null).isUnsorted());
+    }
+
+    @Test
+    void testParseToleratesBlanksAroundTokens() {
+        assertEquals(Sort.by(Sort.Order.asc("price"), Sort.Order.desc("title")),
+                BookSortParser.parse(" price : asc ,title:Desc "));
+    }
+
+    @Test
+    void testParseReturnsSameInstanceForSameSpec() {
+        assertSame(BookSortParser.parse("author:ASC"), BookSortParser.parse("author:ASC"));
+    }
+
+    @Test
+    void testParseRejectsInvalidSpecs() {
+        assertEquals("Invalid book sort 'title:DESC, other:asc' at position 12: unknown property 'other', " +
+                        "expected one of title, author, price, releaseDate",
+                assertThrows(InvalidSortException.class, () -> BookSortParser.parse("title:DESC, other:asc")).getMessage());
+        assertEquals("Invalid book sort 'title:asc, title:DESC' at position 11: duplicate property 'title'",
+                assertThrows(InvalidSortException.class, () -> BookSortParser.parse("title:asc, title:DESC")).getMessage());
+        assertEquals("Invalid book sort 'title' at position 5: expected ':' after 'title'",
+                assertThrows(InvalidSortException.class, () -> BookSortParser.parse("title")).getMessage());
+        assertEquals("Invalid book sort 'title:up' at position 6: expected ASC or DESC for 'title'",
+                assertThrows(InvalidSortException.class, () -> BookSortParser.parse("title:up")).getMessage());
+        assertThrows(InvalidSortException.class, () -> BookSortParser.parse("title:asc, "));
+        assertThrows(InvalidSortException.class, () -> BookSortParser.parse("title:asc;author:asc"));
+        assertThrows(InvalidSortException.class, () -> BookSortParser.parse("Title:asc"));
+    }
+
+    @Test
+    void testValidatorUsesParser() {
+        BookOrdersValidator validator = new BookOrdersValidator();
+
+        assertTrue(validator.isValid("title:ASC", null));
+        assertTrue(validator.isValid("", null));
+        assertFalse(validator.isValid("title:ASC, title:DESC", null));
+        assertFalse(validator.isValid("{title}:ASC", null));
+    }
+}